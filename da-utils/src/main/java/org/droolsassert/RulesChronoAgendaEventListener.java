@@ -1,29 +1,47 @@
 package org.droolsassert;
 
+import static java.lang.System.nanoTime;
 import static org.droolsassert.util.PerfStat.AGGREGATION_PERIOD_MS;
 
+import java.util.IdentityHashMap;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import org.droolsassert.util.PerfStat;
+import org.droolsassert.util.Sampler;
 import org.droolsassert.util.Stat;
 import org.kie.api.event.rule.AfterMatchFiredEvent;
 import org.kie.api.event.rule.BeforeMatchFiredEvent;
+import org.kie.api.definition.rule.Rule;
 import org.kie.api.event.rule.DefaultAgendaEventListener;
 
 /**
  * Collect live performance statistic for rules (then block) as aggregated {@code Serializable} result.<br>
- * Statistic domains are JVM global, you can use unique session prefix as a namespace if needed.<br>
+ * Statistic domains are JVM global, you can use unique session prefix as a namespace if needed and {@link #release()} them when the session is disposed,
+ * or keep the statistic in the listener only with {@link #setDetached(boolean) detached} mode.<br>
+ * <p>
+ * Rule statistic is resolved by rule identity, so firing a rule does not allocate (no rule name lookups).<br>
+ * When listener is attached to a single session (which fires rules from one thread at a time) it could be switched to
+ * {@link #setSessionConfined(boolean) session confined} mode to measure leaps in plain fields instead of thread local stop watches.<br>
+ * On high volume sessions rule leaps could be {@link #setSampling(Supplier) sampled}, not measured leaps are only counted.
  * 
  * @see RulesChronoChartRecorder
  * @see PerfStat
+ * @see Sampler
  */
 public class RulesChronoAgendaEventListener extends DefaultAgendaEventListener {
 	
 	protected final ConcurrentHashMap<String, PerfStat> rulesStat = new ConcurrentHashMap<>();
 	protected final long aggregationPeriodMs;
 	protected final String sessionPreffix;
+	private volatile IdentityHashMap<Rule, RuleChrono> rulesCache = new IdentityHashMap<>();
+	private volatile Supplier<? extends Sampler> sampling = Sampler::always;
+	private volatile boolean sessionConfined;
+	private volatile boolean detached;
+	private PerfStat firingRuleStat;
+	private long firingStartNs;
 	
 	/**
 	 * Creates {@link RulesChronoAgendaEventListener} with no session prefix and default aggregation period
@@ -68,27 +86,129 @@ public class RulesChronoAgendaEventListener extends DefaultAgendaEventListener {
 		return result;
 	}
 	
+	/**
+	 * Session confined listener measures rule leaps with {@link System#nanoTime()} stored in the listener itself.<br>
+	 * Use it only if the listener is registered within single session, since matches of the same session are never fired concurrently.
+	 * 
+	 * @param sessionConfined
+	 */
+	public void setSessionConfined(boolean sessionConfined) {
+		this.sessionConfined = sessionConfined;
+	}
+	
+	public boolean isSessionConfined() {
+		return sessionConfined;
+	}
+	
+	/**
+	 * Detached rules statistic is kept in the listener only, it is neither JVM global nor exposed via MBean server (see {@link PerfStat#detached(String, long)}).<br>
+	 * Use it for short living sessions, e.g. one per test. Should be set before the rules are fired.
+	 * 
+	 * @param detached
+	 */
+	public void setDetached(boolean detached) {
+		synchronized (rulesStat) {
+			this.detached = detached;
+			release();
+		}
+	}
+	
+	public boolean isDetached() {
+		return detached;
+	}
+	
+	/**
+	 * Sampling strategy, each rule gets its own sampler instance so rarely fired rules are not shadowed by frequent ones.<br>
+	 * Not sampled firing costs a counter increment, {@link Stat#getSampledLeapsCount()} reports how many leaps were measured.
+	 * 
+	 * <pre>
+	 * rulesChrono.setSampling(() -&gt; Sampler.everyNth(100));
+	 * rulesChrono.setSampling(() -&gt; Sampler.probabilistic(0.01));
+	 * rulesChrono.setSampling(() -&gt; Sampler.adaptive(1000));
+	 * </pre>
+	 * 
+	 * @param sampling
+	 */
+	public void setSampling(Supplier<? extends Sampler> sampling) {
+		synchronized (rulesStat) {
+			this.sampling = sampling;
+			rulesCache = new IdentityHashMap<>();
+		}
+	}
+	
 	@Override
 	public void beforeMatchFired(BeforeMatchFiredEvent event) {
-		String ruleName = event.getMatch().getRule().getName();
-		PerfStat ruleStat = rulesStat.get(ruleName);
-		if (ruleStat == null) {
+		RuleChrono ruleChrono = ruleChrono(event.getMatch().getRule());
+		if (!ruleChrono.sampler.sample()) {
+			ruleChrono.stat.skip();
+		} else if (sessionConfined) {
+			firingRuleStat = ruleChrono.stat;
+			firingStartNs = nanoTime();
+		} else {
+			ruleChrono.stat.start();
+		}
+	}
+	
+	@Override
+	public void afterMatchFired(AfterMatchFiredEvent event) {
+		if (sessionConfined) {
+			if (firingRuleStat != null)
+				firingRuleStat.record(nanoTime() - firingStartNs);
+			firingRuleStat = null;
+		} else {
+			PerfStat ruleStat = ruleChrono(event.getMatch().getRule()).stat;
+			if (ruleStat.getStopWatch().isStarted())
+				ruleStat.stop();
+		}
+	}
+	
+	/**
+	 * Rule statistic by rule identity, rules cache is copied on write since new rules appear rarely
+	 */
+	private RuleChrono ruleChrono(Rule rule) {
+		RuleChrono ruleChrono = rulesCache.get(rule);
+		if (ruleChrono == null) {
 			synchronized (rulesStat) {
-				if (ruleStat == null) {
-					ruleStat = new PerfStat(sessionPreffix == null ? ruleName : sessionPreffix + ruleName, aggregationPeriodMs);
-					rulesStat.put(ruleName, ruleStat);
+				ruleChrono = rulesCache.get(rule);
+				if (ruleChrono == null) {
+					PerfStat ruleStat = rulesStat.computeIfAbsent(rule.getName(), this::newPerfStat);
+					ruleChrono = new RuleChrono(ruleStat, sampling.get());
+					IdentityHashMap<Rule, RuleChrono> copy = new IdentityHashMap<>(rulesCache);
+					copy.put(rule, ruleChrono);
+					rulesCache = copy;
 				}
 			}
 		}
-		ruleStat.start();
+		return ruleChrono;
 	}
 	
-	@Override
-	public void afterMatchFired(AfterMatchFiredEvent event) {
-		rulesStat.get(event.getMatch().getRule().getName()).stop();
+	private PerfStat newPerfStat(String ruleName) {
+		String domain = sessionPreffix == null ? ruleName : sessionPreffix + ruleName;
+		return detached ? PerfStat.detached(domain, aggregationPeriodMs) : new PerfStat(domain, aggregationPeriodMs);
 	}
 	
 	public void reset() {
 		rulesStat.values().forEach(PerfStat::reset);
 	}
+	
+	/**
+	 * Release rules statistic domains (see {@link PerfStat#release()}), rules fired afterwards start new statistic
+	 */
+	public void release() {
+		synchronized (rulesStat) {
+			rulesCache = new IdentityHashMap<>();
+			rulesStat.values().forEach(PerfStat::release);
+			rulesStat.clear();
+		}
+	}
+	
+	private static class RuleChrono {
+		private final PerfStat stat;
+		private final Sampler sampler;
+		
+		private RuleChrono(PerfStat stat, Sampler sampler) {
+			this.stat = stat;
+			this.sampler = sampler;
+		}
+	}
 }
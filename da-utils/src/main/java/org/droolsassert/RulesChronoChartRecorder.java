@@ -20,6 +20,7 @@ import org.jfree.data.time.TimeSeries;
  * Collect live performance statistic for rules (then block) as aggregated result and jfree chart {@code TimeSeries}.<br>
  * Suitable for real environment and statistic delivery at the end of the flow or exposed by rest API etc.<br>
  * Statistic domains are JVM global, you can use unique session prefix as a namespace if needed.<br>
+ * Charts are built from measured leaps only, so {@link #setSampling(java.util.function.Supplier) sampling} keeps them meaningful under high load.<br>
  * <i>Note:</i> This class creates single background thread (for all instances) which will stop gracefully when last instance will be garbage collected.
  * 
  * @see RulesChronoAgendaEventListener
@@ -0,0 +1,180 @@
+package org.droolsassert.util;
+
+import static java.lang.Long.numberOfLeadingZeros;
+import static java.lang.Math.ceil;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed memory, log-bucketed (HDR style) histogram of non-negative values.<br>
+ * Every power of two range is split into 16 linear sub-buckets which gives about 6% precision for any recorded value.<br>
+ * Values above 2^40 are clamped to the last bucket.
+ * <p>
+ * Recording does not lock. Counters are kept in a single array (about 5KB) until concurrent recording is detected,
+ * then further arrays are allocated on demand and striped per thread, up to the number of processors (16 at most).<br>
+ * Histograms are mergeable, so percentiles of several histograms (e.g. from different JVMs) could be combined correctly.
+ *
+ * @see #record(long)
+ * @see #percentiles(long[], double...)
+ */
+public final class Histogram implements Serializable {
+	private static final long serialVersionUID = -3284571950239016721L;
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_EXPONENT = 40;
+	private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+	private static final int STRIPES = stripes();
+	
+	private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPES);
+	private volatile boolean contended;
+	
+	/**
+	 * Record single value, safe to be called concurrently
+	 */
+	public void record(long value) {
+		int bucket = bucket(value);
+		if (!contended) {
+			AtomicLongArray stripe = stripe(0);
+			long count = stripe.get(bucket);
+			if (stripe.compareAndSet(bucket, count, count + 1))
+				return;
+			contended = true;
+		}
+		stripe((int) (Thread.currentThread().getId() % STRIPES)).incrementAndGet(bucket);
+	}
+	
+	/**
+	 * Add counts of another histogram to this one
+	 */
+	public void add(Histogram rhs) {
+		long[] counts = rhs.snapshot();
+		AtomicLongArray stripe = stripe(0);
+		for (int i = 0; i < BUCKETS; i++) {
+			if (counts[i] != 0)
+				stripe.addAndGet(i, counts[i]);
+		}
+	}
+	
+	/**
+	 * Counts per bucket
+	 */
+	public long[] snapshot() {
+		return collect(false);
+	}
+	
+	/**
+	 * Counts per bucket, the histogram is reset at the same time.<br>
+	 * Values being recorded concurrently either get into result or stay for the next drain but never lost.
+	 */
+	public long[] drain() {
+		return collect(true);
+	}
+	
+	public void reset() {
+		collect(true);
+	}
+	
+	/**
+	 * @see #percentiles(long[], double...)
+	 */
+	public double percentile(double quantile) {
+		return percentiles(snapshot(), quantile)[0];
+	}
+	
+	/**
+	 * Values at quantiles (0..1) given bucket counts.<br>
+	 * Value is reported as a middle of the bucket where quantile falls into, 0 if there were no values recorded.
+	 *
+	 * @see #snapshot()
+	 * @see #drain()
+	 */
+	public static double[] percentiles(long[] counts, double... quantiles) {
+		long total = 0;
+		for (long count : counts)
+			total += count;
+		
+		double[] result = new double[quantiles.length];
+		if (total == 0)
+			return result;
+		
+		for (int q = 0; q < quantiles.length; q++) {
+			long rank = max(1, min(total, (long) ceil(quantiles[q] * total)));
+			long cumulative = 0;
+			for (int i = 0; i < counts.length; i++) {
+				cumulative += counts[i];
+				if (cumulative >= rank) {
+					result[q] = lowestValue(i) + (width(i) >> 1);
+					break;
+				}
+			}
+		}
+		return result;
+	}
+	
+	static int bucket(long value) {
+		if (value < SUB_BUCKETS)
+			return value < 0 ? 0 : (int) value;
+		int exponent = 63 - numberOfLeadingZeros(value);
+		if (exponent > MAX_EXPONENT)
+			return BUCKETS - 1;
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+	
+	static long lowestValue(int bucket) {
+		if (bucket < 2 * SUB_BUCKETS)
+			return bucket;
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+	}
+	
+	static long width(int bucket) {
+		if (bucket < 2 * SUB_BUCKETS)
+			return 1;
+		return 1L << (bucket / SUB_BUCKETS - 1);
+	}
+	
+	/**
+	 * Number of counter arrays allocated
+	 */
+	int stripesAllocated() {
+		int allocated = 0;
+		for (int s = 0; s < STRIPES; s++) {
+			if (stripes.get(s) != null)
+				allocated++;
+		}
+		return allocated;
+	}
+	
+	private AtomicLongArray stripe(int index) {
+		AtomicLongArray stripe = stripes.get(index);
+		if (stripe == null) {
+			stripes.compareAndSet(index, null, new AtomicLongArray(BUCKETS));
+			stripe = stripes.get(index);
+		}
+		return stripe;
+	}
+	
+	private long[] collect(boolean reset) {
+		long[] counts = new long[BUCKETS];
+		for (int s = 0; s < stripes.length(); s++) {
+			AtomicLongArray stripe = stripes.get(s);
+			if (stripe == null)
+				continue;
+			for (int i = 0; i < BUCKETS; i++)
+				counts[i] += reset ? stripe.getAndSet(i, 0) : stripe.get(i);
+		}
+		return counts;
+	}
+	
+	private static int stripes() {
+		int stripes = 1;
+		while (stripes < Runtime.getRuntime().availableProcessors() && stripes < 16)
+			stripes <<= 1;
+		return stripes;
+	}
+}
@@ -1,21 +1,49 @@
 package org.droolsassert.util;
 
+import static java.lang.Integer.parseInt;
+import static java.lang.System.getProperty;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
 import static org.apache.commons.lang3.StringUtils.defaultIfEmpty;
 import static org.mvel2.MVEL.compileExpression;
 import static org.mvel2.MVEL.executeExpression;
 
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 
+import org.mvel2.ParserConfiguration;
 import org.mvel2.ParserContext;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Evaluates MVEL expressions in {@code ${...}} and {@code $${...}$} placeholders.<br>
+ * Compiled expressions are cached by expression text per processor class and imports, the cache is bounded and shared by the processors
+ * with the same imports. Imports should be changed with {@link #importPackage(String)} or in {@link #parserContext()}.
+ * Cache size can be changed with system property
+ * 
+ * <pre>
+ * -Ddroolsassert.mvelCacheSize=10000
+ * </pre>
+ */
 public class MvelProcessor extends PatternProcessor {
 	
-	private static final String PATTERN = "\\$\\$\\{(?<long>(?!.*?\\$\\{).*?)\\}\\$|\\$\\{(?<short>(?!.*?\\$\\{).*?)\\}";
+	public static final int MVEL_CACHE_SIZE = parseInt(getProperty("droolsassert.mvelCacheSize", "10000"));
+	/** innermost placeholders: long one does not contain '${', short one does not contain '{' (e.g. long one or a block) */
+	private static final String PATTERN = "\\$\\$\\{(?<long>(?:(?!\\$\\{).)*?)\\}\\$|\\$\\{(?<short>[^{]*?)\\}";
+	private static final Map<String, Cache<String, Serializable>> expressionsByImports = new ConcurrentHashMap<>();
 	
 	protected final ParserContext parserContext;
 	protected volatile Map<String, Object> executionContext = executionContext();
+	private volatile Cache<String, Serializable> expressions;
 	
 	public MvelProcessor() {
 		super(PATTERN);
@@ -29,6 +57,7 @@ public class MvelProcessor extends PatternProcessor {
 	
 	public void importPackage(String packageName) {
 		parserContext.addPackageImport(packageName);
+		expressions = null;
 	}
 	
 	/**
@@ -54,15 +83,27 @@ public class MvelProcessor extends PatternProcessor {
 		return "" + evaluate(defaultIfEmpty(matcher.group("long"), matcher.group("short")));
 	}
 	
+	@Override
+	protected boolean mayContainPlaceholders(String string) {
+		return string.contains("${");
+	}
+	
 	@SuppressWarnings("unchecked")
 	public <T> T evaluate(String expression) {
 		try {
-			return (T) executeExpression(compileExpression(expression, parserContext), executionContext);
+			return (T) executeExpression(compiled(expression), executionContext);
 		} catch (Exception e) {
 			throw new RuntimeException("Cannot evaluate " + expression, e);
 		}
 	}
 	
+	/**
+	 * Compiled expressions cache statistics (hit rate etc.) shared by the processors with the same imports
+	 */
+	public CacheStats getExpressionCacheStats() {
+		return expressions().stats();
+	}
+	
 	/**
 	 * Execution context which could be reset with {@link #reset()}
 	 */
@@ -78,4 +119,36 @@ public class MvelProcessor extends PatternProcessor {
 	protected ParserContext parserContext() throws Exception {
 		return new ParserContext();
 	}
+	
+	private Serializable compiled(String expression) {
+		Cache<String, Serializable> cache = expressions();
+		Serializable compiled = cache.getIfPresent(expression);
+		if (compiled == null) {
+			synchronized (parserContext) {
+				compiled = compileExpression(expression, parserContext);
+			}
+			cache.put(expression, compiled);
+		}
+		return compiled;
+	}
+	
+	private Cache<String, Serializable> expressions() {
+		Cache<String, Serializable> cache = expressions;
+		if (cache == null) {
+			cache = expressionsByImports.computeIfAbsent(importsKey(), key -> CacheBuilder.newBuilder().maximumSize(MVEL_CACHE_SIZE).recordStats().build());
+			expressions = cache;
+		}
+		return cache;
+	}
+	
+	private String importsKey() {
+		synchronized (parserContext) {
+			ParserConfiguration configuration = parserContext.getParserConfiguration();
+			Map<String, ?> imports = configuration.getImports();
+			Set<String> packageImports = configuration.getPackageImports();
+			return getClass().getName()
+					+ (imports == null ? emptyMap() : new TreeMap<>(imports))
+					+ (packageImports == null ? emptySet() : new TreeSet<>(packageImports));
+		}
+	}
 }
@@ -1,19 +1,44 @@
 package org.droolsassert.util;
 
-import static java.util.regex.Matcher.quoteReplacement;
+import static java.lang.Integer.parseInt;
+import static java.lang.System.getProperty;
 import static java.util.regex.Pattern.DOTALL;
 import static java.util.regex.Pattern.MULTILINE;
 import static java.util.regex.Pattern.compile;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Replaces placeholders matching the pattern with resolved values.<br>
+ * Input strings are compiled into literal and placeholder segments once and cached (per pattern, shared by all instances),
+ * so processing of the same string again does not scan it with the pattern. All the placeholders found by the pattern are resolved in one pass,
+ * resolved string is scanned again only if it may contain placeholders (nested or introduced by resolved values). Cache size can be changed with system property
+ * 
+ * <pre>
+ * -Ddroolsassert.templateCacheSize=10000
+ * </pre>
+ */
 public abstract class PatternProcessor {
+	
+	public static final int TEMPLATE_CACHE_SIZE = parseInt(getProperty("droolsassert.templateCacheSize", "10000"));
+	private static final Map<String, Cache<String, Template>> templatesByPattern = new ConcurrentHashMap<>();
+	
 	protected final Pattern pattern;
+	private final Cache<String, Template> templates;
 	
 	public PatternProcessor(String pattern) {
 		this.pattern = compile(pattern, MULTILINE | DOTALL);
+		this.templates = templatesByPattern.computeIfAbsent(pattern, p -> CacheBuilder.newBuilder().maximumSize(TEMPLATE_CACHE_SIZE).recordStats().build());
 	}
 	
 	public String process(String string) {
@@ -24,19 +49,77 @@ public abstract class PatternProcessor {
 		if (isEmpty(string))
 			return string;
 		
-		String before, resolved = string;
-		do {
-			before = resolved;
-			StringBuffer buffer = new StringBuffer();
-			Matcher matcher = pattern.matcher(resolved);
-			while (matcher.find())
-				matcher.appendReplacement(buffer, quoteReplacement(resolve(matcher)));
-			matcher.appendTail(buffer);
-			resolved = buffer.toString();
-		} while (!before.equals(resolved) && recursive);
+		Template template = template(string);
+		String resolved = resolve(template);
+		while (recursive && template.placeholders.length > 0 && mayContainPlaceholders(resolved)) {
+			// intermediate results are not cached to keep the cache for input strings
+			template = new Template(resolved, pattern);
+			resolved = resolve(template);
+		}
 		
 		return resolved;
 	}
 	
+	/**
+	 * Template cache statistics (hit rate etc.) shared by the processors with the same pattern
+	 */
+	public CacheStats getTemplateCacheStats() {
+		return templates.stats();
+	}
+	
 	protected abstract String resolve(Matcher matcher);
+	
+	/**
+	 * Cheap check whether resolved string should be scanned with the pattern again in recursive mode, e.g. placeholder prefix lookup
+	 */
+	protected boolean mayContainPlaceholders(String string) {
+		return true;
+	}
+	
+	private String resolve(Template template) {
+		if (template.placeholders.length == 0)
+			return template.literals[0];
+		
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < template.placeholders.length; i++) {
+			sb.append(template.literals[i]);
+			Matcher matcher = pattern.matcher(template.placeholders[i]);
+			matcher.find();
+			sb.append(resolve(matcher));
+		}
+		sb.append(template.literals[template.placeholders.length]);
+		return sb.toString();
+	}
+	
+	private Template template(String string) {
+		Template template = templates.getIfPresent(string);
+		if (template == null) {
+			template = new Template(string, pattern);
+			templates.put(string, template);
+		}
+		return template;
+	}
+	
+	/**
+	 * String split into literals and placeholders in between, there is always one literal more than placeholders
+	 */
+	private static final class Template {
+		private final String[] literals;
+		private final String[] placeholders;
+		
+		private Template(String string, Pattern pattern) {
+			List<String> literals = new ArrayList<>();
+			List<String> placeholders = new ArrayList<>();
+			Matcher matcher = pattern.matcher(string);
+			int literalStart = 0;
+			while (matcher.find()) {
+				literals.add(string.substring(literalStart, matcher.start()));
+				placeholders.add(matcher.group());
+				literalStart = matcher.end();
+			}
+			literals.add(string.substring(literalStart));
+			this.literals = literals.toArray(new String[0]);
+			this.placeholders = placeholders.toArray(new String[0]);
+		}
+	}
 }
@@ -6,11 +6,15 @@ import static java.lang.System.currentTimeMillis;
 import static java.lang.System.getProperty;
 import static javax.management.ObjectName.quote;
 import static org.droolsassert.util.JmxUtils.registerMBean;
+import static org.droolsassert.util.JmxUtils.unregisterMBean;
 
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.management.ObjectName;
 
 import org.apache.commons.lang3.time.StopWatch;
 
@@ -31,6 +35,9 @@ import org.apache.commons.lang3.time.StopWatch;
  * 
  * @see #start()
  * @see #stop()
+ * @see #record(long)
+ * @see #skip()
+ * @see #release()
  * @see PerfStat#getPerfStat()
  * @see StopWatch
  */
@@ -39,6 +46,7 @@ public class PerfStat {
 	public static final String DOMAIN = getProperty("perfstat.domain", "org.droolsassert.perf");
 	public static final long AGGREGATION_PERIOD_MS = parseLong(getProperty("perfstat.aggregationPeriodMs", "4000"));
 	private static final ConcurrentHashMap<String, StatImpl> stats = new ConcurrentHashMap<>();
+	private static final ConcurrentHashMap<StatImpl, ObjectName> mbeans = new ConcurrentHashMap<>();
 	
 	/**
 	 * Performance statistic for domain
@@ -60,24 +68,25 @@ public class PerfStat {
 	 * You may want to merge performance statistic from other JVMs
 	 */
 	public static void merge(Map<String, StatImpl> rhsStats) {
-		synchronized (stats) {
-			for (Entry<String, StatImpl> rhsStat : rhsStats.entrySet()) {
-				StatImpl lhs = stats.get(rhsStat.getKey());
-				StatImpl rhs = rhsStat.getValue();
-				if (lhs == null) {
-					stats.put(rhsStat.getKey(), rhs);
-					continue;
-				}
-				lhs.leapsCount += rhs.leapsCount;
-				lhs.totalTimeNs += rhs.totalTimeNs;
-				if (rhs.minTimeMs < lhs.minTimeMs)
-					lhs.minTimeMs = rhs.minTimeMs;
-				if (rhs.maxTimeMs > lhs.maxTimeMs)
-					lhs.maxTimeMs = rhs.maxTimeMs;
-			}
+		for (Entry<String, StatImpl> rhsStat : rhsStats.entrySet()) {
+			stats.merge(rhsStat.getKey(), rhsStat.getValue(), (lhs, rhs) -> {
+				lhs.merge(rhs);
+				return lhs;
+			});
 		}
 	}
 	
+	/**
+	 * Statistic which is not registered in JVM global domains ({@link #getPerfStat(String)}) and MBean server.<br>
+	 * Use for short living statistic, e.g. per session, it is collected along with the owner and needs no {@link #release()}.
+	 * 
+	 * @param domain
+	 * @param aggregationPeriodMs
+	 */
+	public static PerfStat detached(String domain, long aggregationPeriodMs) {
+		return new PerfStat(new StatImpl(domain), aggregationPeriodMs);
+	}
+	
 	/**
 	 * Reset statistic for all domains
 	 */
@@ -87,34 +96,66 @@ public class PerfStat {
 	
 	private ThreadLocal<StopWatch> stopWatch = ThreadLocal.withInitial(() -> new StopWatch());
 	private StatImpl stat;
-	private long lastAggregationTimeMs = currentTimeMillis();
+	private volatile long lastAggregationTimeMs = currentTimeMillis();
 	private long aggregationPeriodMs;
+	private final AtomicBoolean released = new AtomicBoolean();
 	
 	public PerfStat(String domain) {
 		this(domain, AGGREGATION_PERIOD_MS);
 	}
 	
+	/**
+	 * Domain statistic is looked up without global locking, the first peer of the domain registers its MBean.
+	 * 
+	 * @param domain
+	 * @param aggregationPeriodMs
+	 */
 	public PerfStat(String domain, long aggregationPeriodMs) {
 		this.aggregationPeriodMs = aggregationPeriodMs;
-		stat = stats.get(domain);
-		if (stat == null)
-			initStat(domain);
-		stat.peersCount.incrementAndGet();
+		StatImpl[] created = new StatImpl[1];
+		stat = stats.compute(domain, (d, s) -> {
+			StatImpl domainStat = s == null ? created[0] = new StatImpl(d) : s;
+			domainStat.peersCount.incrementAndGet();
+			return domainStat;
+		});
+		if (created[0] == stat)
+			registerStat();
+	}
+	
+	private PerfStat(StatImpl stat, long aggregationPeriodMs) {
+		this.stat = stat;
+		this.aggregationPeriodMs = aggregationPeriodMs;
+		released.set(true);
 	}
 	
 	@Override
 	protected void finalize() throws Throwable {
-		stat.peersCount.decrementAndGet();
+		if (released.compareAndSet(false, true))
+			stat.peersCount.decrementAndGet();
 		super.finalize();
 	}
 	
-	private void initStat(String domain) {
-		synchronized (stats) {
-			stat = stats.get(domain);
-			if (stat == null) {
-				stat = new StatImpl(domain);
-				stats.put(domain, stat);
-				registerMBean(format("%s:type=%s", DOMAIN, quote(domain)), stat, Stat.class);
+	private void registerStat() {
+		synchronized (stat) {
+			if (stats.get(stat.getDomain()) == stat)
+				mbeans.put(stat, registerMBean(format("%s:type=%s", DOMAIN, quote(stat.getDomain())), stat, Stat.class).getObjectName());
+		}
+	}
+	
+	/**
+	 * Release the domain by this peer, the last peer removes the domain statistic and unregisters its MBean.<br>
+	 * Short living statistic should be rather {@link #detached(String, long) detached} to not register MBeans at all.
+	 */
+	public void release() {
+		if (!released.compareAndSet(false, true))
+			return;
+		boolean[] last = new boolean[1];
+		stats.compute(stat.getDomain(), (d, s) -> (last[0] = stat.peersCount.decrementAndGet() == 0) && s == stat ? null : s);
+		if (last[0]) {
+			synchronized (stat) {
+				ObjectName mbean = mbeans.remove(stat);
+				if (mbean != null)
+					unregisterMBean(mbean.toString());
 			}
 		}
 	}
@@ -124,26 +165,9 @@ public class PerfStat {
 	 * Reset sample (period) values if aggregation time threshold passed over.
 	 */
 	public PerfStat start() {
-		if (stopWatch.get().isStarted()) {
-			synchronized (stat) {
-				stat.failedLeapsCount += 1;
-			}
-		}
-		long currentTimeMillis = currentTimeMillis();
-		if (stat.leapsCountSample > 0 && currentTimeMillis > lastAggregationTimeMs + aggregationPeriodMs) {
-			synchronized (stat) {
-				if (stat.leapsCountSample > 0 && currentTimeMillis > lastAggregationTimeMs + aggregationPeriodMs) {
-					lastAggregationTimeMs = currentTimeMillis;
-					stat.avgTimeSampleMs = round(stat.totalTimeSampleNs / stat.leapsCountSample);
-					stat.leapsCountSample = 0;
-					stat.totalTimeSampleNs = 0;
-					stat.maxTimeSampleMs = stat.maxTimeThresholdMs;
-					stat.maxTimeThresholdMs = 0;
-					stat.minTimeSampleMs = stat.minTimeThresholdMs;
-					stat.minTimeThresholdMs = 0;
-				}
-			}
-		}
+		if (stopWatch.get().isStarted())
+			stat.failedLeapsCount.increment();
+		aggregate(currentTimeMillis());
 		stopWatch.get().reset();
 		stopWatch.get().start();
 		return this;
@@ -151,30 +175,45 @@ public class PerfStat {
 	
 	/**
 	 * Stop to measure execution time for current thread, update performance statistic for the domain.<br>
-	 * If stop was not executed for some reason and then start will be called again <i>by the same thread</i> then current leap will be counted as failed.
+	 * If stop was not executed for some reason and then start will be called again <i>by the same thread</i> then current leap will be counted as failed.<br>
+	 * Statistic is updated without locking, so concurrent leaps of the same domain do not contend with each other.
 	 */
 	public long stop() {
 		stopWatch.get().stop();
 		long timeNs = stopWatch.get().getNanoTime();
-		double timeMs = round(timeNs);
-		synchronized (stat) {
-			stat.leapTimeMs = timeMs;
-			stat.totalTimeNs += timeNs;
-			stat.totalTimeSampleNs += timeNs;
-			if (timeMs > stat.maxTimeMs)
-				stat.maxTimeMs = timeMs;
-			if (timeMs > stat.maxTimeThresholdMs)
-				stat.maxTimeThresholdMs = timeMs;
-			if (timeMs < stat.minTimeMs || stat.minTimeMs == 0)
-				stat.minTimeMs = timeMs;
-			if (timeMs < stat.minTimeThresholdMs || stat.minTimeThresholdMs == 0)
-				stat.minTimeThresholdMs = timeMs;
-			stat.leapsCount += 1;
-			stat.leapsCountSample += 1;
-		}
+		stat.record(timeNs);
+		return timeNs;
+	}
+	
+	/**
+	 * Update performance statistic for the domain with the leap measured by the caller (using {@link System#nanoTime()}).<br>
+	 * Unlike {@link #start()} / {@link #stop()} pair this does not touch thread local stop watch and does not allocate.
+	 */
+	public long record(long timeNs) {
+		aggregate(currentTimeMillis());
+		stat.record(timeNs);
 		return timeNs;
 	}
 	
+	/**
+	 * Count the leap without measuring it, e.g. when it was not picked by {@link Sampler}.<br>
+	 * Costs a single counter increment.
+	 */
+	public void skip() {
+		stat.skip();
+	}
+	
+	private void aggregate(long currentTimeMillis) {
+		if (currentTimeMillis > lastAggregationTimeMs + aggregationPeriodMs) {
+			synchronized (stat) {
+				if (currentTimeMillis > lastAggregationTimeMs + aggregationPeriodMs) {
+					lastAggregationTimeMs = currentTimeMillis;
+					stat.aggregateSample();
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Reset statistic
 	 */
@@ -0,0 +1,107 @@
+package org.droolsassert.util;
+
+import static java.lang.Math.ceil;
+import static java.lang.Math.max;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides whether a leap should be measured or just counted.<br>
+ * Sampler keeps state in plain fields, concurrent calls may skew sampling rate slightly but never break it.
+ *
+ * <pre>
+ * if (sampler.sample())
+ *     perfStat.start();
+ * else
+ *     perfStat.skip();
+ * </pre>
+ *
+ * @see PerfStat#skip()
+ */
+public interface Sampler {
+	
+	/**
+	 * @return true if current leap should be measured
+	 */
+	boolean sample();
+	
+	/**
+	 * Measure every leap
+	 */
+	static Sampler always() {
+		return () -> true;
+	}
+	
+	/**
+	 * Measure every n-th leap, the first one is always measured
+	 */
+	static Sampler everyNth(int n) {
+		if (n < 1)
+			throw new IllegalArgumentException("Sampling interval must be positive");
+		return new Sampler() {
+			private int counter;
+			
+			@Override
+			public boolean sample() {
+				if (counter-- > 0)
+					return false;
+				counter = n - 1;
+				return true;
+			}
+		};
+	}
+	
+	/**
+	 * Measure leap with given probability (0..1)
+	 */
+	static Sampler probabilistic(double probability) {
+		if (probability < 0 || probability > 1)
+			throw new IllegalArgumentException("Sampling probability must be within [0, 1]");
+		return () -> ThreadLocalRandom.current().nextDouble() < probability;
+	}
+	
+	/**
+	 * Measure no more than given number of leaps per second.<br>
+	 * Sampling interval is recalculated every second from the observed leaps rate, so overhead stays within the budget under any load.
+	 */
+	static Sampler adaptive(int samplesPerSecond) {
+		return adaptive(samplesPerSecond, System::nanoTime);
+	}
+	
+	/**
+	 * @param nanoClock
+	 *            time source in nanoseconds, e.g. to replay the load in tests
+	 * @see #adaptive(int)
+	 */
+	static Sampler adaptive(int samplesPerSecond, LongSupplier nanoClock) {
+		if (samplesPerSecond < 1)
+			throw new IllegalArgumentException("Samples per second must be positive");
+		return new Sampler() {
+			private final long windowNs = SECONDS.toNanos(1);
+			private long windowStartNs = nanoClock.getAsLong();
+			private long leaps;
+			private long interval = 1;
+			private long counter;
+			
+			@Override
+			public boolean sample() {
+				leaps++;
+				if (counter-- > 0)
+					return false;
+				counter = interval - 1;
+				
+				long now = nanoClock.getAsLong();
+				long elapsedNs = now - windowStartNs;
+				if (elapsedNs >= windowNs) {
+					double leapsPerSecond = leaps * (double) windowNs / elapsedNs;
+					interval = max(1, (long) ceil(leapsPerSecond / samplesPerSecond));
+					windowStartNs = now;
+					leaps = 0;
+				}
+				return true;
+			}
+		};
+	}
+}
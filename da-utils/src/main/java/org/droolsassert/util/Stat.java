@@ -7,6 +7,8 @@ public interface Stat extends Serializable {
 	
 	long getLeapsCount();
 	
+	long getSampledLeapsCount();
+	
 	double getMinTimeMs();
 	
 	double getMinTimeSampleMs();
@@ -23,6 +25,22 @@ public interface Stat extends Serializable {
 	
 	double getTotalTimeMs();
 	
+	double getP50TimeMs();
+	
+	double getP50TimeSampleMs();
+	
+	double getP90TimeMs();
+	
+	double getP90TimeSampleMs();
+	
+	double getP99TimeMs();
+	
+	double getP99TimeSampleMs();
+	
+	double getP999TimeMs();
+	
+	double getP999TimeSampleMs();
+	
 	long getFailedLeapsCount();
 	
 	long getPeersCount();
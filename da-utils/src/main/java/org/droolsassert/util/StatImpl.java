@@ -1,25 +1,43 @@
 package org.droolsassert.util;
 
+import static java.lang.Long.MAX_VALUE;
 import static java.lang.String.format;
 
+import java.io.Serializable;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
 
+/**
+ * Statistic is recorded into striped accumulators (no locks on the hot path) and folded together only when being read.<br>
+ * Leap time distribution is kept in {@link Histogram} for lifetime and current sample (period) to report percentiles.<br>
+ * When leaps are sampled, times (averages, percentiles) are calculated over measured leaps while leaps count stays the true one.
+ */
 public final class StatImpl implements Stat {
-	private static final long serialVersionUID = -9173318780008157727L;
+	private static final long serialVersionUID = 2843645108421342741L;
+	private static final LongBinaryOperator MIN = (LongBinaryOperator & Serializable) Math::min;
+	private static final LongBinaryOperator MAX = (LongBinaryOperator & Serializable) Math::max;
+	private static final double[] PERCENTILES = { 0.5, 0.9, 0.99, 0.999 };
+	
 	private String domain;
-	volatile long leapsCount;
-	volatile long leapsCountSample;
-	volatile long failedLeapsCount;
-	volatile double totalTimeNs;
-	volatile double totalTimeSampleNs;
+	final LongAdder leapsCount = new LongAdder();
+	final LongAdder sampledLeapsCount = new LongAdder();
+	final LongAdder leapsCountSample = new LongAdder();
+	final LongAdder failedLeapsCount = new LongAdder();
+	final LongAdder totalTimeNs = new LongAdder();
+	final LongAdder totalTimeSampleNs = new LongAdder();
+	final LongAccumulator minTimeNs = new LongAccumulator(MIN, MAX_VALUE);
+	final LongAccumulator minTimeThresholdNs = new LongAccumulator(MIN, MAX_VALUE);
+	final LongAccumulator maxTimeNs = new LongAccumulator(MAX, 0);
+	final LongAccumulator maxTimeThresholdNs = new LongAccumulator(MAX, 0);
+	final AtomicLong leapTimeNs = new AtomicLong();
+	final Histogram histogram = new Histogram();
+	final Histogram histogramSample = new Histogram();
 	volatile double avgTimeSampleMs;
-	volatile double leapTimeMs;
-	volatile double minTimeMs;
 	volatile double minTimeSampleMs;
-	volatile double minTimeThresholdMs;
-	volatile double maxTimeMs;
 	volatile double maxTimeSampleMs;
-	volatile double maxTimeThresholdMs;
+	volatile double[] percentilesSampleMs = new double[PERCENTILES.length];
 	final AtomicLong peersCount = new AtomicLong();
 	
 	public StatImpl() {
@@ -30,17 +48,77 @@ public final class StatImpl implements Stat {
 		this.domain = domain;
 	}
 	
+	/**
+	 * Record single leap, safe to be called concurrently
+	 */
+	void record(long timeNs) {
+		leapTimeNs.lazySet(timeNs);
+		totalTimeNs.add(timeNs);
+		totalTimeSampleNs.add(timeNs);
+		minTimeNs.accumulate(timeNs);
+		minTimeThresholdNs.accumulate(timeNs);
+		maxTimeNs.accumulate(timeNs);
+		maxTimeThresholdNs.accumulate(timeNs);
+		histogram.record(timeNs);
+		histogramSample.record(timeNs);
+		leapsCount.increment();
+		sampledLeapsCount.increment();
+		leapsCountSample.increment();
+	}
+	
+	/**
+	 * Count leap which was not measured
+	 */
+	void skip() {
+		leapsCount.increment();
+	}
+	
+	/**
+	 * Close current sample (period) and start a new one.<br>
+	 * Sample values are left intact if there were no leaps within the period.
+	 */
+	synchronized void aggregateSample() {
+		long count = leapsCountSample.sumThenReset();
+		long totalNs = totalTimeSampleNs.sumThenReset();
+		long minNs = minTimeThresholdNs.getThenReset();
+		long maxNs = maxTimeThresholdNs.getThenReset();
+		long[] counts = histogramSample.drain();
+		if (count == 0)
+			return;
+		avgTimeSampleMs = PerfStat.round((double) totalNs / count);
+		minTimeSampleMs = PerfStat.round(minNs == MAX_VALUE ? 0 : minNs);
+		maxTimeSampleMs = PerfStat.round(maxNs);
+		percentilesSampleMs = toMs(Histogram.percentiles(counts, PERCENTILES));
+	}
+	
+	/**
+	 * Merge lifetime values of another statistic into this one
+	 */
+	void merge(StatImpl rhs) {
+		leapsCount.add(rhs.leapsCount.sum());
+		sampledLeapsCount.add(rhs.sampledLeapsCount.sum());
+		failedLeapsCount.add(rhs.failedLeapsCount.sum());
+		totalTimeNs.add(rhs.totalTimeNs.sum());
+		minTimeNs.accumulate(rhs.minTimeNs.get());
+		maxTimeNs.accumulate(rhs.maxTimeNs.get());
+		histogram.add(rhs.histogram);
+	}
+	
 	public synchronized void reset() {
-		totalTimeNs = 0;
-		totalTimeSampleNs = 0;
-		maxTimeMs = 0;
+		totalTimeNs.reset();
+		totalTimeSampleNs.reset();
+		maxTimeNs.reset();
 		maxTimeSampleMs = 0;
-		maxTimeThresholdMs = 0;
-		minTimeMs = 0;
+		maxTimeThresholdNs.reset();
+		minTimeNs.reset();
 		minTimeSampleMs = 0;
-		minTimeThresholdMs = 0;
-		leapsCount = 0;
-		leapsCountSample = 0;
+		minTimeThresholdNs.reset();
+		leapsCount.reset();
+		sampledLeapsCount.reset();
+		leapsCountSample.reset();
+		histogram.reset();
+		histogramSample.reset();
+		percentilesSampleMs = new double[PERCENTILES.length];
 	}
 	
 	public String getDomain() {
@@ -49,17 +127,23 @@ public final class StatImpl implements Stat {
 	
 	@Override
 	public long getLeapsCount() {
-		return leapsCount;
+		return leapsCount.sum();
+	}
+	
+	@Override
+	public long getSampledLeapsCount() {
+		return sampledLeapsCount.sum();
 	}
 	
 	@Override
 	public double getLeapTimeMs() {
-		return leapTimeMs;
+		return PerfStat.round(leapTimeNs.get());
 	}
 	
 	@Override
 	public double getMinTimeMs() {
-		return minTimeMs;
+		long minNs = minTimeNs.get();
+		return minNs == MAX_VALUE ? 0 : PerfStat.round(minNs);
 	}
 	
 	@Override
@@ -69,7 +153,7 @@ public final class StatImpl implements Stat {
 	
 	@Override
 	public double getMaxTimeMs() {
-		return maxTimeMs;
+		return PerfStat.round(maxTimeNs.get());
 	}
 	
 	@Override
@@ -79,7 +163,7 @@ public final class StatImpl implements Stat {
 	
 	@Override
 	public double getAvgTimeMs() {
-		return PerfStat.round(totalTimeNs / leapsCount);
+		return PerfStat.round(totalTimeNs.doubleValue() / sampledLeapsCount.sum());
 	}
 	
 	@Override
@@ -89,12 +173,52 @@ public final class StatImpl implements Stat {
 	
 	@Override
 	public double getTotalTimeMs() {
-		return PerfStat.round(totalTimeNs);
+		return PerfStat.round(totalTimeNs.sum());
+	}
+	
+	@Override
+	public double getP50TimeMs() {
+		return percentileMs(0);
+	}
+	
+	@Override
+	public double getP50TimeSampleMs() {
+		return percentilesSampleMs[0];
+	}
+	
+	@Override
+	public double getP90TimeMs() {
+		return percentileMs(1);
+	}
+	
+	@Override
+	public double getP90TimeSampleMs() {
+		return percentilesSampleMs[1];
+	}
+	
+	@Override
+	public double getP99TimeMs() {
+		return percentileMs(2);
+	}
+	
+	@Override
+	public double getP99TimeSampleMs() {
+		return percentilesSampleMs[2];
+	}
+	
+	@Override
+	public double getP999TimeMs() {
+		return percentileMs(3);
+	}
+	
+	@Override
+	public double getP999TimeSampleMs() {
+		return percentilesSampleMs[3];
 	}
 	
 	@Override
 	public long getFailedLeapsCount() {
-		return failedLeapsCount;
+		return failedLeapsCount.sum();
 	}
 	
 	@Override
@@ -102,8 +226,18 @@ public final class StatImpl implements Stat {
 		return peersCount.get();
 	}
 	
+	private double percentileMs(int index) {
+		return PerfStat.round(histogram.percentile(PERCENTILES[index]));
+	}
+	
+	private static double[] toMs(double[] valuesNs) {
+		for (int i = 0; i < valuesNs.length; i++)
+			valuesNs[i] = PerfStat.round(valuesNs[i]);
+		return valuesNs;
+	}
+	
 	@Override
 	public String toString() {
-		return format("%,.2f %,.2f %,.2f", minTimeMs, getAvgTimeMs(), maxTimeMs);
+		return format("%,.2f %,.2f %,.2f", getMinTimeMs(), getAvgTimeMs(), getMaxTimeMs());
 	}
-}
\ No newline at end of file
+}
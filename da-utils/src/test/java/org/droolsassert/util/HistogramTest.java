@@ -0,0 +1,94 @@
+package org.droolsassert.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class HistogramTest {
+	
+	@Test
+	public void testBucketsAreContinuous() {
+		for (long value = 0; value < 1_000_000; value++) {
+			int bucket = Histogram.bucket(value);
+			long lowest = Histogram.lowestValue(bucket);
+			assertEquals(true, value >= lowest && value < lowest + Histogram.width(bucket));
+		}
+	}
+	
+	@Test
+	public void testPercentiles() {
+		Histogram histogram = new Histogram();
+		for (int i = 1; i <= 1000; i++)
+			histogram.record(i * 1000L);
+		
+		assertEquals(500_000, histogram.percentile(0.5), 500_000 * 0.07);
+		assertEquals(990_000, histogram.percentile(0.99), 990_000 * 0.07);
+		assertEquals(1000, histogram.percentile(0), 1000 * 0.07);
+	}
+	
+	@Test
+	public void testMergedPercentiles() {
+		Histogram fast = new Histogram();
+		Histogram slow = new Histogram();
+		for (int i = 0; i < 900; i++)
+			fast.record(1000);
+		for (int i = 0; i < 100; i++)
+			slow.record(1_000_000);
+		
+		fast.add(slow);
+		
+		assertEquals(1000, fast.percentile(0.9), 1000 * 0.07);
+		assertEquals(1_000_000, fast.percentile(0.95), 1_000_000 * 0.07);
+	}
+	
+	@Test
+	public void testDrain() {
+		Histogram histogram = new Histogram();
+		histogram.record(10);
+		histogram.record(20);
+		
+		assertEquals(2, sum(histogram.drain()));
+		assertEquals(0, sum(histogram.snapshot()));
+		assertEquals(0, histogram.percentile(0.99), 0);
+	}
+	
+	@Test
+	public void testSingleStripeWhenUncontended() throws InterruptedException {
+		Histogram histogram = new Histogram();
+		for (int t = 0; t < 8; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 1000; i++)
+					histogram.record(i);
+			});
+			thread.start();
+			thread.join();
+		}
+		
+		assertEquals(1, histogram.stripesAllocated());
+		assertEquals(8000, sum(histogram.snapshot()));
+	}
+	
+	@Test
+	public void testConcurrentRecording() throws InterruptedException {
+		Histogram histogram = new Histogram();
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 100_000; i++)
+					histogram.record(i);
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		
+		assertEquals(800_000, sum(histogram.snapshot()));
+	}
+	
+	private long sum(long[] counts) {
+		long sum = 0;
+		for (long count : counts)
+			sum += count;
+		return sum;
+	}
+}
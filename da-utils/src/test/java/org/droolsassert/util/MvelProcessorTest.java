@@ -1,11 +1,15 @@
 package org.droolsassert.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
+import com.google.common.cache.CacheStats;
+
 public class MvelProcessorTest {
 	
 	private MvelProcessor mvelProcessor = new MvelProcessor();
@@ -17,6 +21,41 @@ public class MvelProcessorTest {
 		assertEquals("string with a value", mvelProcessor.process("string with ${value}"));
 	}
 	
+	@Test
+	public void testOnlyInputTemplateCached() {
+		mvelProcessor.define("value", "${placeholder}");
+		mvelProcessor.define("placeholder", "a value");
+		CacheStats before = mvelProcessor.getTemplateCacheStats();
+		mvelProcessor.process("only input ${value}");
+		assertEquals(1, mvelProcessor.getTemplateCacheStats().minus(before).requestCount());
+	}
+	
+	@Test
+	public void testPlaceholdersResolvedInOnePass() {
+		AtomicInteger passes = new AtomicInteger();
+		MvelProcessor mvelProcessor = new MvelProcessor() {
+			@Override
+			protected boolean mayContainPlaceholders(String string) {
+				passes.incrementAndGet();
+				return super.mayContainPlaceholders(string);
+			}
+		};
+		mvelProcessor.define("a", 1);
+		mvelProcessor.define("b", 2);
+		mvelProcessor.define("c", 3);
+		CacheStats before = mvelProcessor.getTemplateCacheStats();
+		assertEquals("row 1 and 2 or 3", mvelProcessor.process("row ${a} and ${b} or ${c}"));
+		assertEquals(1, mvelProcessor.getTemplateCacheStats().minus(before).requestCount());
+		assertEquals(1, passes.get());
+	}
+	
+	@Test
+	public void testNestedPlaceholders() {
+		mvelProcessor.define("ab", "nested");
+		mvelProcessor.define("b", "b");
+		assertEquals("row nested and b", mvelProcessor.process("row ${a${b}} and ${b}"));
+	}
+	
 	@Test
 	public void testMultiline() {
 		mvelProcessor.define("x", "5");
@@ -26,4 +65,22 @@ public class MvelProcessorTest {
 				+ "f(5, 2) + ${x};"
 				+ "}$"));
 	}
+	
+	@Test
+	public void testCompiledExpressionReused() {
+		mvelProcessor.define("row", 0);
+		mvelProcessor.evaluate("row * 2");
+		CacheStats before = mvelProcessor.getExpressionCacheStats();
+		for (int row = 0; row < 10; row++) {
+			mvelProcessor.define("row", row);
+			assertEquals("row " + row * 2, mvelProcessor.process("row ${row * 2}"));
+		}
+		assertTrue(mvelProcessor.getExpressionCacheStats().minus(before).hitCount() >= 10);
+	}
+	
+	@Test
+	public void testImportChangesCompiledExpression() {
+		mvelProcessor.importPackage("java.util.concurrent");
+		assertEquals("SECONDS", mvelProcessor.process("${TimeUnit.SECONDS}"));
+	}
 }
@@ -1,7 +1,29 @@
 package org.droolsassert.util;
 
 import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
 import static java.lang.System.out;
+import static java.util.Collections.singletonMap;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static javax.management.ObjectName.quote;
+import static org.droolsassert.util.PerfStat.AGGREGATION_PERIOD_MS;
+import static org.droolsassert.util.PerfStat.DOMAIN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
 
 import org.junit.Ignore;
 import org.junit.Test;
@@ -23,4 +45,131 @@ public class PerfStatTest {
 		out.printf("cycle time %f", ((currentTimeMillis() - start) / cycles)); // ~0.000150ms
 	}
 	
+	@Test
+	@Ignore("for manual run")
+	public void testContended() throws Exception {
+		for (int threads = 1; threads <= 2 * Runtime.getRuntime().availableProcessors(); threads *= 2) {
+			int cycles = 10_000_000;
+			long timeNs = runConcurrently(new PerfStat("domain.under.contention." + threads), threads, cycles);
+			out.printf("threads %d, cycle time %fns%n", threads, (double) timeNs / cycles);
+		}
+	}
+	
+	@Test
+	public void testConcurrentLeapsAreNotLost() throws Exception {
+		int threads = 8;
+		int cycles = 10_000;
+		PerfStat domainPerf = new PerfStat("domain.under.concurrent.test");
+		
+		runConcurrently(domainPerf, threads, cycles);
+		
+		Stat stat = domainPerf.getStat();
+		assertEquals(threads * cycles, stat.getLeapsCount());
+		assertEquals(0, stat.getFailedLeapsCount());
+		assertTrue(stat.getMinTimeMs() <= stat.getAvgTimeMs());
+		assertTrue(stat.getAvgTimeMs() <= stat.getMaxTimeMs());
+	}
+	
+	@Test
+	public void testRecord() {
+		PerfStat domainPerf = new PerfStat("domain.under.record.test");
+		domainPerf.record(2_000_000);
+		domainPerf.record(4_000_000);
+		
+		Stat stat = domainPerf.getStat();
+		assertEquals(2, stat.getLeapsCount());
+		assertEquals(3.0, stat.getAvgTimeMs(), 0);
+		assertEquals(4.0, stat.getLeapTimeMs(), 0);
+	}
+	
+	@Test
+	public void testSkip() {
+		PerfStat domainPerf = new PerfStat("domain.under.skip.test");
+		domainPerf.record(2_000_000);
+		domainPerf.skip();
+		domainPerf.skip();
+		
+		Stat stat = domainPerf.getStat();
+		assertEquals(3, stat.getLeapsCount());
+		assertEquals(1, stat.getSampledLeapsCount());
+		assertEquals(2.0, stat.getAvgTimeMs(), 0);
+	}
+	
+	@Test
+	public void testMerge() {
+		PerfStat domainPerf = new PerfStat("domain.under.merge.test");
+		domainPerf.start();
+		domainPerf.stop();
+		
+		StatImpl rhs = new StatImpl("domain.under.merge.test");
+		rhs.record(5_000_000);
+		rhs.record(7_000_000);
+		PerfStat.merge(singletonMap("domain.under.merge.test", rhs));
+		
+		Stat stat = domainPerf.getStat();
+		assertEquals(3, stat.getLeapsCount());
+		assertEquals(7.0, stat.getMaxTimeMs(), 0);
+		assertEquals(7.0, stat.getP99TimeMs(), 7.0 * 0.07);
+		assertEquals(5.0, stat.getP50TimeMs(), 5.0 * 0.07);
+	}
+	
+	@Test
+	public void testRelease() {
+		PerfStat domainPerf = new PerfStat("domain.under.release.test");
+		PerfStat peerPerf = new PerfStat("domain.under.release.test");
+		assertEquals(1, queryMBeans("domain.under.release.test").size());
+		domainPerf.release();
+		domainPerf.release();
+		assertTrue(PerfStat.getPerfStat().containsKey("domain.under.release.test"));
+		
+		peerPerf.release();
+		assertNull(PerfStat.getPerfStat("domain.under.release.test"));
+		assertTrue(queryMBeans("domain.under.release.test").isEmpty());
+	}
+	
+	@Test
+	public void testDetached() {
+		PerfStat domainPerf = PerfStat.detached("domain.under.detached.test", AGGREGATION_PERIOD_MS);
+		domainPerf.record(MILLISECONDS.toNanos(5));
+		assertEquals(1, domainPerf.getStat().getLeapsCount());
+		assertNull(PerfStat.getPerfStat("domain.under.detached.test"));
+		assertTrue(queryMBeans("domain.under.detached.test").isEmpty());
+	}
+	
+	/**
+	 * Returns average wall time per thread
+	 */
+	private long runConcurrently(PerfStat domainPerf, int threads, int cycles) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch startLatch = new CountDownLatch(1);
+			List<Future<Long>> results = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				results.add(executor.submit(() -> {
+					startLatch.await();
+					long start = nanoTime();
+					for (int i = 0; i < cycles; i++) {
+						domainPerf.start();
+						domainPerf.stop();
+					}
+					return nanoTime() - start;
+				}));
+			}
+			startLatch.countDown();
+			long totalNs = 0;
+			for (Future<Long> result : results)
+				totalNs += result.get(1, MINUTES);
+			return totalNs / threads;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	private Set<ObjectInstance> queryMBeans(String domain) {
+		try {
+			return ManagementFactory.getPlatformMBeanServer().queryMBeans(new ObjectName(DOMAIN + ":type=" + quote(domain) + ",*"), null);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
 }
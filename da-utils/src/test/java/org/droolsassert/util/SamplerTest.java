@@ -0,0 +1,52 @@
+package org.droolsassert.util;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class SamplerTest {
+	
+	@Test
+	public void testEveryNth() {
+		assertEquals(10, sampled(Sampler.everyNth(10), 100));
+		assertEquals(100, sampled(Sampler.everyNth(1), 100));
+		assertEquals(100, sampled(Sampler.always(), 100));
+	}
+	
+	@Test
+	public void testProbabilistic() {
+		assertEquals(0, sampled(Sampler.probabilistic(0), 1000));
+		assertEquals(1000, sampled(Sampler.probabilistic(1), 1000));
+		int sampled = sampled(Sampler.probabilistic(0.1), 100_000);
+		assertTrue(sampled > 9_000 && sampled < 11_000);
+	}
+	
+	@Test
+	public void testAdaptive() {
+		AtomicLong clock = new AtomicLong();
+		Sampler sampler = Sampler.adaptive(100, clock::get);
+		assertEquals(1_000, sampled(sampler, 1_000));
+		clock.addAndGet(SECONDS.toNanos(1));
+		sampled(sampler, 1);
+		// 1001 leaps per second observed, so every 11th leap is sampled now
+		assertEquals(910, sampled(sampler, 10_000));
+		
+		clock.addAndGet(SECONDS.toNanos(10));
+		sampled(sampler, 11);
+		// 10011 leaps in 10 seconds, every 11th leap is sampled again
+		assertEquals(10, sampled(sampler, 110));
+	}
+	
+	private int sampled(Sampler sampler, int leaps) {
+		int sampled = 0;
+		for (int i = 0; i < leaps; i++) {
+			if (sampler.sample())
+				sampled++;
+		}
+		return sampled;
+	}
+}
@@ -0,0 +1,191 @@
+package org.droolsassert.benchmarks;
+
+import static java.lang.System.setProperty;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.commons.io.output.NullOutputStream.NULL_OUTPUT_STREAM;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.droolsassert.ComplexEventProcessingTest.Dialing;
+import org.droolsassert.DroolsAssert;
+import org.droolsassert.DroolsSession;
+import org.droolsassert.SlidingTimeWindowTest.SensorReading;
+import org.droolsassert.SlidingTimeWindowTest.TemperatureThreshold;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.api.time.SessionPseudoClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@code fireAllRules} for the test rules with a single diagnostic listener attached (or none for the baseline).<br>
+ * Session is created by {@link DroolsAssert} as usual, then all listeners but the one under test are removed from the session.<br>
+ * The session is driven directly (not via {@link DroolsAssert} helpers) to keep the baseline free from assertion bookkeeping.
+ * <p>
+ * State transition graph is built but never rendered, so the figure shows recording overhead only.<br>
+ * Console output (logging listener, rules) is discarded to measure formatting rather than terminal speed.
+ *
+ * <pre>
+ * java -jar droolsassert-benchmarks/target/benchmarks.jar ListenersBenchmark -p listener=None,LoggingListener
+ * </pre>
+ */
+@BenchmarkMode(AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ListenersBenchmark {
+	
+	public enum Scenario {
+		Rules(RulesSession.class) {
+			@Override
+			void run(KieSession session, SessionPseudoClock clock, long op) {
+				FactHandle atomicInt = session.insert(new AtomicInteger());
+				FactHandle atomicLong = session.insert(new AtomicLong());
+				session.fireAllRules();
+				session.delete(atomicInt);
+				session.delete(atomicLong);
+				session.fireAllRules();
+			}
+		},
+		ComplexEventProcessing(ComplexEventProcessingSession.class) {
+			@Override
+			void setup(KieSession session) {
+				session.setGlobal("stdout", System.out);
+			}
+			
+			@Override
+			void run(KieSession session, SessionPseudoClock clock, long op) {
+				session.insert(new Dialing("11111", "22222"));
+				session.fireAllRules();
+				// call in progress is dropped after 30 minutes
+				for (int i = 0; i <= 30; i++) {
+					clock.advanceTime(1, MINUTES);
+					session.fireAllRules();
+				}
+			}
+		},
+		SlidingTimeWindow(SlidingTimeWindowSession.class) {
+			@Override
+			void setup(KieSession session) {
+				session.setGlobal("stdout", System.out);
+				session.insert(new TemperatureThreshold(30));
+			}
+			
+			@Override
+			void run(KieSession session, SessionPseudoClock clock, long op) {
+				session.insert(new SensorReading(op % 4 == 0 ? 60 : 20));
+				session.fireAllRules();
+				clock.advanceTime(1, SECONDS);
+				session.fireAllRules();
+			}
+		};
+		
+		private final Class<?> sessionMetaHolder;
+		
+		private Scenario(Class<?> sessionMetaHolder) {
+			this.sessionMetaHolder = sessionMetaHolder;
+		}
+		
+		DroolsSession droolsSessionMeta() {
+			return sessionMetaHolder.getAnnotation(DroolsSession.class);
+		}
+		
+		void setup(KieSession session) {
+		}
+		
+		abstract void run(KieSession session, SessionPseudoClock clock, long op);
+	}
+	
+	public enum Listener {
+		None,
+		ActivationsTracker,
+		FactsHistoryTracker,
+		LoggingListener,
+		RulesChronoAgendaEventListener,
+		StateTransitionBuilder;
+		
+		boolean accepts(Object eventListener) {
+			return eventListener.getClass().getSimpleName().equals(name());
+		}
+	}
+	
+	@DroolsSession("org/droolsassert/rules.drl")
+	static class RulesSession {
+	}
+	
+	@DroolsSession("org/droolsassert/complexEventProcessing.drl")
+	static class ComplexEventProcessingSession {
+	}
+	
+	@DroolsSession("org/droolsassert/slidingTimeWindow.drl")
+	static class SlidingTimeWindowSession {
+	}
+	
+	@Param
+	public Scenario scenario;
+	
+	@Param
+	public Listener listener;
+	
+	private PrintStream stdout;
+	private DroolsAssert drools;
+	private KieSession session;
+	private SessionPseudoClock clock;
+	private long op;
+	
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		if (listener == Listener.StateTransitionBuilder)
+			setProperty("droolsassert.stateTransitionReport", "true");
+		stdout = System.out;
+		System.setOut(new PrintStream(NULL_OUTPUT_STREAM));
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDownTrial() {
+		System.setOut(stdout);
+	}
+	
+	@Setup(Level.Iteration)
+	public void setupIteration() {
+		drools = new DroolsAssert();
+		drools.init(scenario.droolsSessionMeta(), null);
+		session = drools.getSession();
+		clock = session.getSessionClock();
+		
+		new ArrayList<>(session.getAgendaEventListeners()).stream().filter(l -> !listener.accepts(l)).forEach(session::removeEventListener);
+		new ArrayList<>(session.getRuleRuntimeEventListeners()).stream().filter(l -> !listener.accepts(l)).forEach(session::removeEventListener);
+		drools.getListeners().forEach(l -> l.beforeScenario(getClass().getSimpleName(), scenario + "-" + listener));
+		
+		scenario.setup(session);
+	}
+	
+	@TearDown(Level.Iteration)
+	public void tearDownIteration() {
+		drools.destroy();
+	}
+	
+	@Benchmark
+	public long fireAllRules() {
+		scenario.run(session, clock, op++);
+		return session.getFactCount();
+	}
+}
@@ -0,0 +1,57 @@
+package org.droolsassert.benchmarks;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+
+import org.droolsassert.util.PerfStat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a single {@link PerfStat} leap, uncontended and with all available threads updating the same domain.
+ *
+ * <pre>
+ * java -jar droolsassert-benchmarks/target/benchmarks.jar PerfStatBenchmark
+ * </pre>
+ */
+@BenchmarkMode(AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PerfStatBenchmark {
+	
+	private PerfStat perfStat = new PerfStat("benchmark.perfStat");
+	
+	@Benchmark
+	public long startStop() {
+		perfStat.start();
+		return perfStat.stop();
+	}
+	
+	@Benchmark
+	@Threads(Threads.MAX)
+	public long startStopContended() {
+		perfStat.start();
+		return perfStat.stop();
+	}
+	
+	@Benchmark
+	public long record() {
+		return perfStat.record(1_000);
+	}
+	
+	@Benchmark
+	@Threads(Threads.MAX)
+	public long recordContended() {
+		return perfStat.record(1_000);
+	}
+}
@@ -0,0 +1,185 @@
+package org.droolsassert;
+
+import static java.util.Arrays.copyOf;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Rule activation counters with checkpoints to calculate activations delta.<br>
+ * Counts are kept in a primitive array indexed by rule in order of the first activation.<br>
+ * Each generation (time between checkpoints) logs a rule once when it gets activated along with its count before,
+ * so the delta since any checkpoint costs the number of rules activated since then rather than the number of known rules.<br>
+ * Counts are boxed into maps only when requested.
+ *
+ * @see #checkpoint()
+ * @see #since(Checkpoint)
+ */
+public class ActivationsCounter {
+	
+	private final Map<String, Integer> index = new HashMap<>();
+	private String[] rules = new String[16];
+	private int[] counts = new int[16];
+	private int[] generations = new int[16];
+	private int size;
+	private int generation = 1;
+	
+	private int[] logRules = new int[64];
+	private int[] logCounts = new int[64];
+	private int logSize;
+	
+	private final Map<String, Integer> view = new MapView();
+	
+	public void activated(String rule) {
+		Integer ruleIndex = index.get(rule);
+		if (ruleIndex == null)
+			ruleIndex = register(rule);
+		int i = ruleIndex;
+		if (generations[i] != generation) {
+			generations[i] = generation;
+			log(i, counts[i]);
+		}
+		counts[i]++;
+	}
+	
+	private int register(String rule) {
+		if (size == rules.length) {
+			rules = copyOf(rules, size * 2);
+			counts = copyOf(counts, size * 2);
+			generations = copyOf(generations, size * 2);
+		}
+		rules[size] = rule;
+		index.put(rule, size);
+		return size++;
+	}
+	
+	private void log(int ruleIndex, int count) {
+		if (logSize == logRules.length) {
+			logRules = copyOf(logRules, logSize * 2);
+			logCounts = copyOf(logCounts, logSize * 2);
+		}
+		logRules[logSize] = ruleIndex;
+		logCounts[logSize] = count;
+		logSize++;
+	}
+	
+	/**
+	 * Starts new generation, activations after the checkpoint are counted as delta
+	 */
+	public Checkpoint checkpoint() {
+		return new Checkpoint(generation++, logSize);
+	}
+	
+	/**
+	 * @return true if any rule was activated since the checkpoint
+	 */
+	public boolean activatedSince(Checkpoint checkpoint) {
+		return logSize > checkpoint.logPosition;
+	}
+	
+	/**
+	 * @return true if the rule was activated since the checkpoint
+	 */
+	public boolean activatedSince(Checkpoint checkpoint, String rule) {
+		Integer ruleIndex = index.get(rule);
+		return ruleIndex != null && generations[ruleIndex] > checkpoint.generation;
+	}
+	
+	/**
+	 * Activations delta since the checkpoint in order of the first activation after the checkpoint
+	 */
+	public Map<String, Integer> since(Checkpoint checkpoint) {
+		Map<String, Integer> delta = new LinkedHashMap<>();
+		for (int i = checkpoint.logPosition; i < logSize; i++) {
+			int ruleIndex = logRules[i];
+			delta.putIfAbsent(rules[ruleIndex], counts[ruleIndex] - logCounts[i]);
+		}
+		return delta;
+	}
+	
+	public int count(String rule) {
+		Integer ruleIndex = index.get(rule);
+		return ruleIndex == null ? 0 : counts[ruleIndex];
+	}
+	
+	public int total() {
+		int total = 0;
+		for (int i = 0; i < size; i++)
+			total += counts[i];
+		return total;
+	}
+	
+	/**
+	 * Read-only live view of all activations in order of the first activation
+	 */
+	public Map<String, Integer> asMap() {
+		return view;
+	}
+	
+	/**
+	 * Activations delta reference point
+	 */
+	public static final class Checkpoint {
+		private final int generation;
+		private final int logPosition;
+		
+		private Checkpoint(int generation, int logPosition) {
+			this.generation = generation;
+			this.logPosition = logPosition;
+		}
+	}
+	
+	private class MapView extends AbstractMap<String, Integer> {
+		@Override
+		public Integer get(Object key) {
+			Integer ruleIndex = index.get(key);
+			return ruleIndex == null ? null : counts[ruleIndex];
+		}
+		
+		@Override
+		public boolean containsKey(Object key) {
+			return index.containsKey(key);
+		}
+		
+		@Override
+		public int size() {
+			return size;
+		}
+		
+		@Override
+		public Set<Entry<String, Integer>> entrySet() {
+			return new AbstractSet<Entry<String, Integer>>() {
+				@Override
+				public Iterator<Entry<String, Integer>> iterator() {
+					return new Iterator<Entry<String, Integer>>() {
+						private int next;
+						
+						@Override
+						public boolean hasNext() {
+							return next < size;
+						}
+						
+						@Override
+						public Entry<String, Integer> next() {
+							if (next >= size)
+								throw new NoSuchElementException();
+							int i = next++;
+							return new SimpleImmutableEntry<>(rules[i], counts[i]);
+						}
+					};
+				}
+				
+				@Override
+				public int size() {
+					return size;
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package org.droolsassert;
+
+import static java.lang.Integer.parseInt;
+import static java.lang.System.getProperty;
+import static java.lang.System.lineSeparator;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.commons.io.FileUtils.forceMkdirParent;
+import static org.apache.commons.lang3.StringUtils.isEmpty;
+import static org.droolsassert.DroolsAssertUtils.formatTime;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.droolsassert.listeners.LoggingListener;
+
+/**
+ * Asynchronous log for {@link DroolsAssert#log(String)} and {@link LoggingListener} (opt-in).<br>
+ * Log records (clock time and message) are queued into a pre-sized ring buffer, then written in batches by a single background thread,
+ * so the firing thread does not pay for console or file I/O.<br>
+ * Messages are still formatted by the firing thread, facts may change after the event so they cannot be formatted later.<br>
+ * Records logged by a thread are written in the same order, log is flushed when the session is destroyed and on JVM shutdown.
+ * <p>
+ * Define system property to enable asynchronous log to standard output or to the file
+ *
+ * <pre>
+ * -Ddroolsassert.asyncLog[=&lt;file_path&gt;]
+ * -Ddroolsassert.asyncLogCapacity=65536
+ * -Ddroolsassert.asyncLogOverflow=BLOCK|DROP
+ * </pre>
+ *
+ * <b>BLOCK</b> (default) - logging thread waits for free space in the buffer<br>
+ * <b>DROP</b> - record is dropped, number of dropped records is logged instead
+ * <p>
+ * Messages are built by the caller, so facts are logged in their state at the event.<br>
+ * Records are dropped instead of waiting if the writer thread is not alive. Output of the rules to standard output is not synchronized with the log, prefer the file when the order matters.
+ */
+public final class AsyncLog {
+	
+	public enum Overflow {
+		BLOCK, DROP
+	}
+	
+	private static final int BATCH_SIZE = 1024;
+	private static final long LIVENESS_CHECK_MS = 100;
+	private static final AsyncLog instance = fromSystemProperties();
+	
+	private final BlockingQueue<Record> buffer;
+	private final Overflow overflow;
+	private final PrintStream out;
+	private final LongAdder dropped = new LongAdder();
+	private final Thread writer;
+	
+	/**
+	 * @param file
+	 *            log file, null for standard output
+	 */
+	public AsyncLog(int capacity, Overflow overflow, File file) {
+		this(capacity, overflow, file == null ? System.out : open(file));
+	}
+	
+	public AsyncLog(int capacity, Overflow overflow, PrintStream out) {
+		this.buffer = new ArrayBlockingQueue<>(capacity);
+		this.overflow = overflow;
+		this.out = out;
+		writer = new Thread(this::write, "droolsassert-async-log");
+		writer.setDaemon(true);
+		writer.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(this::flush));
+	}
+	
+	private static PrintStream open(File file) {
+		try {
+			forceMkdirParent(file);
+			return new PrintStream(new FileOutputStream(file), false);
+		} catch (IOException e) {
+			throw new DroolsAssertException("Cannot open log file " + file, e);
+		}
+	}
+	
+	private static AsyncLog fromSystemProperties() {
+		String property = getProperty("droolsassert.asyncLog");
+		if (property == null)
+			return null;
+		return new AsyncLog(
+				parseInt(getProperty("droolsassert.asyncLogCapacity", "65536")),
+				Overflow.valueOf(getProperty("droolsassert.asyncLogOverflow", Overflow.BLOCK.name())),
+				isEmpty(property) || "true".equals(property) ? null : new File(property));
+	}
+	
+	/**
+	 * @return shared log instance or null if asynchronous log is not enabled
+	 */
+	public static AsyncLog getInstance() {
+		return instance;
+	}
+	
+	public void log(long time, String message) {
+		Record record = new Record(time, message, null);
+		if (overflow == Overflow.DROP ? !buffer.offer(record) : !enqueue(record))
+			dropped.increment();
+	}
+	
+	/**
+	 * Waits until all records logged before are written
+	 * 
+	 * @return false if the writer thread is not alive (records are lost) or the caller was interrupted
+	 */
+	public boolean flush() {
+		CountDownLatch written = new CountDownLatch(1);
+		if (!enqueue(new Record(0, null, written)))
+			return false;
+		try {
+			while (!written.await(LIVENESS_CHECK_MS, MILLISECONDS)) {
+				if (!writer.isAlive())
+					return false;
+			}
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+	
+	/**
+	 * Waits for free space in the buffer while the writer thread is alive
+	 */
+	private boolean enqueue(Record record) {
+		try {
+			while (!buffer.offer(record, LIVENESS_CHECK_MS, MILLISECONDS)) {
+				if (!writer.isAlive())
+					return false;
+			}
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+	
+	private void write() {
+		List<Record> batch = new ArrayList<>(BATCH_SIZE);
+		List<CountDownLatch> flushed = new ArrayList<>();
+		StringBuilder sb = new StringBuilder();
+		while (true) {
+			try {
+				batch.add(buffer.take());
+			} catch (InterruptedException e) {
+				return;
+			}
+			buffer.drainTo(batch, BATCH_SIZE - 1);
+			
+			for (Record record : batch) {
+				if (record.flushed != null) {
+					flushed.add(record.flushed);
+					continue;
+				}
+				sb.append(formatTime(record.time)).append(' ').append(record.message).append(lineSeparator());
+			}
+			long droppedRecords = dropped.sumThenReset();
+			if (droppedRecords > 0)
+				sb.append(droppedRecords).append(" log records dropped").append(lineSeparator());
+			
+			out.print(sb);
+			out.flush();
+			flushed.forEach(CountDownLatch::countDown);
+			sb.setLength(0);
+			batch.clear();
+			flushed.clear();
+		}
+	}
+	
+	private static final class Record {
+		private final long time;
+		private final String message;
+		private final CountDownLatch flushed;
+		
+		private Record(long time, String message, CountDownLatch flushed) {
+			this.time = time;
+			this.message = message;
+			this.flushed = flushed;
+		}
+	}
+}
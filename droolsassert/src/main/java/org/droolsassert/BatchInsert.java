@@ -0,0 +1,153 @@
+package org.droolsassert;
+
+import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Math.floorDiv;
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.EntryPoint;
+import org.kie.api.runtime.rule.FactHandle;
+
+/**
+ * Inserts large amount of facts (e.g. captured production events) with configurable {@code fireAllRules} granularity.<br>
+ * Rules are fired once after the last fact by default.
+ *
+ * <pre>
+ * drools.insertBatch(events)
+ * 		.into("calls")
+ * 		.fireEvery(1000)
+ * 		.withoutHandles()
+ * 		.insertAndFire();
+ *
+ * drools.insertBatch(events)
+ * 		.fireEvery(1, MINUTES, event -&gt; event.getTimestamp())
+ * 		.insertAndFire();
+ * </pre>
+ *
+ * @see DroolsAssert#insertBatch(Iterable)
+ * @see DroolsAssert#insertBatch(java.util.stream.Stream)
+ */
+public class BatchInsert {
+	
+	private final DroolsAssert drools;
+	private final Iterator<?> objects;
+	private final int sizeHint;
+	private EntryPoint entryPoint;
+	private int factsPerFire = MAX_VALUE;
+	private long timeSliceMs;
+	private ToLongFunction<Object> timestamp;
+	private boolean keepHandles = true;
+	
+	BatchInsert(DroolsAssert drools, Iterator<?> objects, int sizeHint) {
+		this.drools = drools;
+		this.objects = objects;
+		this.sizeHint = sizeHint;
+		this.entryPoint = drools.getSession();
+	}
+	
+	/**
+	 * Insert into entry point instead of the session
+	 */
+	public BatchInsert into(String entryPoint) {
+		this.entryPoint = drools.getEntryPoint(entryPoint);
+		return this;
+	}
+	
+	/**
+	 * Insert into entry point instead of the session
+	 */
+	public BatchInsert into(EntryPoint entryPoint) {
+		this.entryPoint = entryPoint;
+		return this;
+	}
+	
+	/**
+	 * Fire all rules after every n facts and after the last one, replaces time slices if any
+	 */
+	public BatchInsert fireEvery(int facts) {
+		if (facts < 1)
+			throw new IllegalArgumentException("Number of facts per fire must be positive");
+		this.factsPerFire = facts;
+		this.timeSliceMs = 0;
+		this.timestamp = null;
+		return this;
+	}
+	
+	/**
+	 * Replay facts in pseudo time.<br>
+	 * Pseudo clock is moved forward to the fact timestamp (millis) before insertion, rules are fired whenever the fact belongs to the next time slice.<br>
+	 * Facts are expected to be ordered by timestamp, clock is never moved backward.<br>
+	 * Replaces number of facts per fire if any.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> BatchInsert fireEvery(long amount, TimeUnit unit, ToLongFunction<T> timestamp) {
+		this.timeSliceMs = unit.toMillis(amount);
+		if (timeSliceMs < 1)
+			throw new IllegalArgumentException("Time slice must be at least one millisecond");
+		this.timestamp = (ToLongFunction<Object>) timestamp;
+		this.factsPerFire = MAX_VALUE;
+		return this;
+	}
+	
+	/**
+	 * Fire all rules once after the last fact (default)
+	 */
+	public BatchInsert fireOnce() {
+		this.factsPerFire = MAX_VALUE;
+		this.timeSliceMs = 0;
+		this.timestamp = null;
+		return this;
+	}
+	
+	/**
+	 * Do not collect fact handles, {@link #insertAndFire()} returns empty list
+	 */
+	public BatchInsert withoutHandles() {
+		this.keepHandles = false;
+		return this;
+	}
+	
+	/**
+	 * @return fact handles in insertion order unless {@link #withoutHandles()}
+	 */
+	public List<FactHandle> insertAndFire() {
+		KieSession session = drools.getSession();
+		List<FactHandle> factHandles = keepHandles ? new ArrayList<>(sizeHint) : emptyList();
+		int pending = 0;
+		long slice = 0;
+		
+		while (objects.hasNext()) {
+			Object object = objects.next();
+			if (timestamp != null) {
+				long time = timestamp.applyAsLong(object);
+				long objectSlice = floorDiv(time, timeSliceMs);
+				if (pending > 0 && objectSlice != slice) {
+					drools.fireAllRules();
+					pending = 0;
+				}
+				slice = objectSlice;
+				long now = session.getSessionClock().getCurrentTime();
+				if (time > now)
+					drools.clock.advanceTime(time - now, MILLISECONDS);
+			}
+			
+			FactHandle factHandle = entryPoint.insert(object);
+			if (keepHandles)
+				factHandles.add(factHandle);
+			if (++pending >= factsPerFire) {
+				drools.fireAllRules();
+				pending = 0;
+			}
+		}
+		if (pending > 0)
+			drools.fireAllRules();
+		return factHandles;
+	}
+}
@@ -1,12 +1,17 @@
 package org.droolsassert;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Suppliers.memoize;
 import static java.lang.Long.MAX_VALUE;
+import static java.lang.Long.MIN_VALUE;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.String.format;
 import static java.lang.System.out;
 import static java.util.Arrays.asList;
 import static java.util.Arrays.stream;
 import static java.util.Collections.sort;
+import static java.util.Comparator.comparingInt;
 import static java.util.concurrent.TimeUnit.DAYS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -14,21 +19,19 @@ import static java.util.stream.Collectors.toList;
 import static org.apache.commons.collections4.CollectionUtils.subtract;
 import static org.apache.commons.io.FileUtils.forceMkdir;
 import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
-import static org.apache.commons.lang3.ObjectUtils.firstNonNull;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.apache.commons.lang3.StringUtils.LF;
 import static org.apache.commons.lang3.StringUtils.SPACE;
+import static org.apache.commons.lang3.StringUtils.isEmpty;
 import static org.apache.commons.lang3.StringUtils.join;
 import static org.apache.commons.lang3.StringUtils.joinWith;
-import static org.apache.commons.lang3.builder.ToStringBuilder.reflectionToString;
-import static org.apache.commons.lang3.builder.ToStringStyle.SHORT_PREFIX_STYLE;
-import static org.apache.commons.lang3.math.NumberUtils.INTEGER_ZERO;
 import static org.droolsassert.DroolsAssertUtils.firstNonEmpty;
 import static org.droolsassert.DroolsAssertUtils.formatTime;
 import static org.droolsassert.DroolsAssertUtils.getExpectedCount;
 import static org.droolsassert.DroolsAssertUtils.getResources;
 import static org.droolsassert.DroolsAssertUtils.getRulesCountFromSource;
 import static org.droolsassert.DroolsAssertUtils.getRulesFromSource;
+import static org.droolsassert.ParallelKieBaseBuilder.isParallelCompilation;
 import static org.droolsassert.jbehave.DroolsSessionProxy.newDroolsSessionProxy;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -48,21 +51,25 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+import org.drools.core.time.TimerService;
+import org.droolsassert.ActivationsCounter.Checkpoint;
 import org.droolsassert.jbehave.DroolsAssertSteps;
 import org.droolsassert.jbehave.DroolsSessionProxy;
 import org.droolsassert.listeners.ActivationReportBuilder;
 import org.droolsassert.listeners.DroolsassertListener;
+import org.droolsassert.listeners.EventJournal;
 import org.droolsassert.listeners.LoggingListener;
 import org.droolsassert.listeners.StateTransitionBuilder;
 import org.junit.rules.TestRule;
@@ -71,6 +78,9 @@ import org.junit.runners.model.Statement;
 import org.kie.api.KieBase;
 import org.kie.api.KieBaseConfiguration;
 import org.kie.api.KieServices;
+import org.kie.api.builder.Message.Level;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.builder.Results;
 import org.kie.api.builder.model.KieModuleModel;
 import org.kie.api.command.Command;
 import org.kie.api.event.process.ProcessEventListener;
@@ -78,7 +88,9 @@ import org.kie.api.event.rule.AgendaEventListener;
 import org.kie.api.event.rule.BeforeMatchFiredEvent;
 import org.kie.api.event.rule.DefaultAgendaEventListener;
 import org.kie.api.event.rule.DefaultRuleRuntimeEventListener;
+import org.kie.api.event.rule.ObjectDeletedEvent;
 import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.event.rule.ObjectUpdatedEvent;
 import org.kie.api.event.rule.RuleRuntimeEventListener;
 import org.kie.api.runtime.KieSession;
 import org.kie.api.runtime.KieSessionConfiguration;
@@ -94,6 +106,11 @@ import org.springframework.core.io.Resource;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.PathMatcher;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSet;
+
 /**
  * JUnit {@link TestRule} for declarative drools tests.
  * 
@@ -164,25 +181,39 @@ import org.springframework.util.PathMatcher;
  *     }
  * </pre>
  * 
+ * DroolsAssert instance serves a single test at a time, structures shared between the instances (KieBase cache, session pools, reports)
+ * are thread safe, so tests could be run in parallel within one JVM (e.g. surefire {@code parallel=methods}).
+ * Rules performance statistic is kept per instance, see {@link #rulesChrono()}.
+ * 
  * @see DroolsAssertSteps
  * @see <a href=https://github.com/droolsassert>Documentation on GitHub</a>
  */
 public class DroolsAssert implements TestRule {
 	protected static final PathMatcher nameMatcher = new AntPathMatcher("\n");
-	protected static Map<DroolsSession, KieBase> kieBases = new WeakHashMap<>();
+	protected static final KieBaseCache kieBases = new KieBaseCache(true);
+	protected static final AsyncLog asyncLog = AsyncLog.getInstance();
+	protected static final Map<Class<? extends FactFormatter>, FactFormatter> factFormatters = new ConcurrentHashMap<>();
+	protected static final LoadingCache<Set<String>, RuleNameMatcher> ignoredMatchers = CacheBuilder.newBuilder().maximumSize(100).build(CacheLoader.from(RuleNameMatcher::new));
 	
 	protected DroolsSession droolsSessionMeta;
 	protected TestRules testRulesMeta;
 	
 	protected KieSession session;
+	protected String sessionPoolKey;
 	protected Agenda agenda;
 	protected SessionPseudoClock clock;
-	protected Map<String, Integer> activations;
-	protected Map<String, Integer> activationsSnapshot;
+	protected ActivationsCounter activations;
+	protected Checkpoint activationsCheckpoint;
 	protected Set<String> ignored;
-	protected Map<Object, Integer> factsHistory;
+	protected RuleNameMatcher ignoredMatcher;
+	protected FactsHistory factsHistory;
+	protected FactsIndex factsIndex;
+	protected long workingMemoryChanges;
+	protected long expiredEventsCheckTime;
+	protected long expiredEventsCheckChanges;
 	protected RulesChronoAgendaEventListener rulesChrono;
 	protected List<DroolsassertListener> listeners;
+	protected FactFormatter factFormatter;
 	
 	/**
 	 * Initializes new drools session based on meta data.<br>
@@ -190,53 +221,135 @@ public class DroolsAssert implements TestRule {
 	 * Can be called multiple times paired with {@link #destroy()}
 	 */
 	public void init(DroolsSession droolsSessionMeta, TestRules testRulesMeta) {
+		init(droolsSessionMeta, testRulesMeta, null);
+	}
+	
+	/**
+	 * Initializes new drools session of the KieBase resolved beforehand for the same meta data (e.g. once per test class).<br>
+	 * KieBase is resolved as usual if null.
+	 *
+	 * @see #resolveKieBase(DroolsSession)
+	 */
+	public void init(DroolsSession droolsSessionMeta, TestRules testRulesMeta, KieBase kieBase) {
 		this.droolsSessionMeta = defaultIfNull(droolsSessionMeta, newDroolsSessionProxy(new DroolsSessionProxy()));
 		this.testRulesMeta = testRulesMeta;
-		this.session = newSession(this.droolsSessionMeta);
+		this.factFormatter = factFormatters.computeIfAbsent(this.droolsSessionMeta.factFormatter(), DroolsAssertUtils::newInstance);
+		this.session = kieBase == null ? newSession(this.droolsSessionMeta) : newSession(this.droolsSessionMeta, kieBase);
 		
 		agenda = session.getAgenda();
 		clock = session.getSessionClock();
 		session.addEventListener(new ActivationsTracker());
 		if (this.droolsSessionMeta.keepFactsHistory())
 			session.addEventListener(new FactsHistoryTracker());
+		factsIndex = this.droolsSessionMeta.indexFacts() ? new FactsIndex() : null;
+		if (factsIndex != null)
+			session.addEventListener(factsIndex);
+		session.addEventListener(new WorkingMemoryChangesTracker());
+		workingMemoryChanges = 0;
+		expiredEventsCheckTime = MIN_VALUE;
 		rulesChrono = rulesChrono();
-		activations = new LinkedHashMap<>();
-		activationsSnapshot = new LinkedHashMap<>();
+		activations = new ActivationsCounter();
+		activationsCheckpoint = activations.checkpoint();
 		initializeIgnoredActivations();
-		factsHistory = new IdentityHashMap<>();
+		factsHistory = new FactsHistory();
 		
 		listeners = listeners();
 		listeners.stream().filter(AgendaEventListener.class::isInstance).forEach(r -> session.addEventListener((AgendaEventListener) r));
 		listeners.stream().filter(RuleRuntimeEventListener.class::isInstance).forEach(r -> session.addEventListener((RuleRuntimeEventListener) r));
 		listeners.stream().filter(ProcessEventListener.class::isInstance).forEach(r -> session.addEventListener((ProcessEventListener) r));
-
+		
 		session.addEventListener(rulesChrono);
 	}
 	
+	/**
+	 * Creates new session of the KieBase resolved for the meta data
+	 * 
+	 * @see #kieBase(DroolsSession)
+	 */
 	protected KieSession newSession(DroolsSession droolsSessionMeta) {
 		try {
-			return kieBase(droolsSessionMeta).newKieSession(sessionConfiguration(droolsSessionMeta), null);
+			return newSession(droolsSessionMeta, kieBase(droolsSessionMeta));
 		} catch (IOException e) {
 			throw new DroolsAssertException("Cannot create new session", e);
 		}
 	}
 	
+	/**
+	 * Takes reset session from the pool for {@link DroolsSession#pooledSession()} or creates new one
+	 */
+	protected KieSession newSession(DroolsSession droolsSessionMeta, KieBase kieBase) {
+		try {
+			sessionPoolKey = droolsSessionMeta.pooledSession() ? new TreeMap<>(sessionProperties(droolsSessionMeta)).toString() : null;
+			KieSession pooledSession = sessionPoolKey == null ? null : kieBases.acquireSession(kieBase, sessionPoolKey);
+			return pooledSession != null ? pooledSession : kieBase.newKieSession(sessionConfiguration(droolsSessionMeta), null);
+		} catch (IOException e) {
+			throw new DroolsAssertException("Cannot create new session", e);
+		}
+	}
+	
+	/**
+	 * KieBase is compiled once per distinct resources content (or explicit cache key) and configuration
+	 * 
+	 * @see KieBaseCache
+	 * @see DroolsSession#cacheKey()
+	 * @see ParallelKieBaseBuilder
+	 */
 	protected KieBase kieBase(DroolsSession droolsSessionMeta) throws IOException {
-		if (kieBases.containsKey(droolsSessionMeta))
-			return kieBases.get(droolsSessionMeta);
+		Supplier<List<Resource>> resources = memoize(() -> getResources(true, droolsSessionMeta.logResources(), firstNonEmpty(droolsSessionMeta.value(), droolsSessionMeta.resources())));
+		Properties builderProperties = builderConfiguration(droolsSessionMeta);
+		Properties baseProperties = baseProperties(droolsSessionMeta);
+		String fingerprint = isEmpty(droolsSessionMeta.cacheKey())
+				? kieBases.fingerprint(resources.get(), builderProperties, baseProperties)
+				: kieBases.fingerprint(droolsSessionMeta.cacheKey(), builderProperties, baseProperties);
 		
-		synchronized (DroolsAssert.class) {
+		return kieBases.get(fingerprint, () -> {
+			if (isParallelCompilation(droolsSessionMeta, builderProperties)) {
+				ParallelKieBaseBuilder builder = new ParallelKieBaseBuilder(builderProperties, baseConfiguration(droolsSessionMeta), droolsSessionMeta.logResources());
+				KieBase kieBase = builder.build(resources.get());
+				kieBases.onEviction(kieBase, builder::release);
+				return kieBase;
+			}
+			
 			KieHelper kieHelper = new KieHelper();
-			kieHelper.setKieModuleModel(kieModule(builderConfiguration(droolsSessionMeta)));
-			for (Resource resource : getResources(true, droolsSessionMeta.logResources(), firstNonEmpty(droolsSessionMeta.value(), droolsSessionMeta.resources())))
+			// unique release id, otherwise concurrent builds overwrite each other in the global kie repository
+			ReleaseId releaseId = kieHelper.ks.newReleaseId("org.droolsassert", "kiebase-" + fingerprint, "1.0.0");
+			kieHelper.kfs.generateAndWritePomXML(releaseId);
+			kieHelper.setKieModuleModel(kieModule(builderProperties));
+			for (Resource resource : resources.get())
 				kieHelper.addResource(newUrlResource(resource.getURL()));
-			KieBase kieBase = kieHelper.build(baseConfiguration(droolsSessionMeta));
-			
-			kieBases.put(droolsSessionMeta, kieBase);
-			return kieBase;
+			// built explicitly, KieHelper.build would open the default release id instead
+			Results results = kieHelper.ks.newKieBuilder(kieHelper.kfs).buildAll().getResults();
+			if (results.hasMessages(Level.ERROR))
+				throw new DroolsAssertException(format("Error while creating KieBase%n%s", results.getMessages()));
+			try {
+				return kieHelper.ks.newKieContainer(releaseId).newKieBase(baseConfiguration(droolsSessionMeta));
+			} finally {
+				kieHelper.ks.getRepository().removeKieModule(releaseId);
+			}
+		});
+	}
+	
+	/**
+	 * Compiles KieBase for the session meta data or takes it from the cache without creating a session
+	 *
+	 * @see #init(DroolsSession, TestRules, KieBase)
+	 */
+	public KieBase resolveKieBase(DroolsSession droolsSessionMeta) {
+		this.droolsSessionMeta = defaultIfNull(droolsSessionMeta, newDroolsSessionProxy(new DroolsSessionProxy()));
+		try {
+			return kieBase(this.droolsSessionMeta);
+		} catch (IOException e) {
+			throw new DroolsAssertException("Cannot resolve KieBase", e);
 		}
 	}
 	
+	/**
+	 * Compiled KieBase cache shared by all {@link DroolsAssert} instances
+	 */
+	public static KieBaseCache getKieBaseCache() {
+		return kieBases;
+	}
+	
 	protected KieModuleModel kieModule(Properties properties) throws IOException {
 		KieModuleModel kmm = KieServices.Factory.get().newKieModuleModel();
 		for (Entry<Object, Object> property : properties.entrySet()) {
@@ -273,7 +386,10 @@ public class DroolsAssert implements TestRule {
 	 * Returns all objects of the class if found
 	 */
 	public <T> List<T> getObjects(Class<T> clazz) {
-		return getObjects(obj -> clazz.isInstance(obj));
+		if (factsIndex == null)
+			return getObjects(obj -> clazz.isInstance(obj));
+		retractExpiredEvents();
+		return factsIndex.getObjects(clazz);
 	}
 	
 	/**
@@ -281,6 +397,8 @@ public class DroolsAssert implements TestRule {
 	 */
 	public <T> List<T> getObjects(Class<T> clazz, Predicate<T> filter) {
 		retractExpiredEvents();
+		if (factsIndex != null)
+			return factsIndex.getObjects(clazz).stream().filter(filter).collect(toList());
 		return (List<T>) session.getEntryPoints().stream()
 				.flatMap(e -> e.getObjects(obj -> clazz.isInstance(obj)).stream())
 				.map(obj -> clazz.cast(obj))
@@ -306,11 +424,12 @@ public class DroolsAssert implements TestRule {
 	
 	/**
 	 * Move clock forward and trigger any scheduled activations.<br>
-	 * Use time unit as a smallest time tick, make specified amount of ticks.
+	 * Use time unit as a smallest time tick, make specified amount of ticks.<br>
+	 * Ticks without scheduled jobs are skipped, clock jumps straight to the tick of the next due job.
 	 */
 	public void advanceTime(TimeUnit unit, long amount) {
-		for (int i = 0; i < amount; i++)
-			tickTime(1, unit);
+		for (long ticks = 0; ticks < amount;)
+			ticks += tickTime(unit, ticks, amount);
 	}
 	
 	/**
@@ -339,7 +458,7 @@ public class DroolsAssert implements TestRule {
 	}
 	
 	public void assertAllActivations(Map<String, Integer> expectedCount) {
-		assertActivations(expectedCount, activations);
+		assertActivations(expectedCount, activations.asMap());
 	}
 	
 	/**
@@ -376,8 +495,8 @@ public class DroolsAssert implements TestRule {
 	}
 	
 	public void assertActivated(Map<String, Integer> expectedCount) {
-		Map<String, Integer> delta = getNewActivations(activationsSnapshot);
-		activationsSnapshot = new LinkedHashMap<>(activations);
+		Map<String, Integer> delta = getNewActivations(activationsCheckpoint);
+		activationsCheckpoint = activations.checkpoint();
 		assertActivations(expectedCount, delta);
 	}
 	
@@ -443,18 +562,18 @@ public class DroolsAssert implements TestRule {
 	 *             if expected rule was not activated within time period
 	 */
 	public void awaitFor(TimeUnit unit, long maxCount, String... rulesToWait) {
-		Map<String, Integer> activationsSnapshot = new HashMap<>(activations);
+		Checkpoint checkpoint = activations.checkpoint();
 		List<String> rules = asList(rulesToWait);
-		for (int i = 0; i < maxCount; i++) {
-			tickTime(1, unit);
-			if (rules.isEmpty() && !getNewActivations(activationsSnapshot).isEmpty()
-					|| !rules.isEmpty() && getNewActivations(activationsSnapshot).keySet().containsAll(rules))
+		for (long ticks = 0; ticks < maxCount;) {
+			ticks += tickTime(unit, ticks, maxCount);
+			if (rules.isEmpty() && activations.activatedSince(checkpoint)
+					|| !rules.isEmpty() && rules.stream().allMatch(rule -> activations.activatedSince(checkpoint, rule)))
 				return;
 		}
 		
 		fail(rules.isEmpty()
 				? "Expected at least one scheduled activation"
-				: formatUnexpectedCollection("Activation", "not scheduled", subtract(rules, getNewActivations(activationsSnapshot).keySet())));
+				: formatUnexpectedCollection("Activation", "not scheduled", subtract(rules, getNewActivations(checkpoint).keySet())));
 	}
 	
 	/**
@@ -464,9 +583,9 @@ public class DroolsAssert implements TestRule {
 	 * @throws AssertionError
 	 */
 	public void assertNoScheduledActivations() {
-		Map<String, Integer> activationsSnapshot = new HashMap<>(activations);
+		Checkpoint checkpoint = activations.checkpoint();
 		triggerAllScheduledActivations();
-		List<String> diff = getNewActivations(activationsSnapshot).keySet().stream().filter(this::isEligibleForAssertion).collect(toList());
+		List<String> diff = getNewActivations(checkpoint).keySet().stream().filter(this::isEligibleForAssertion).collect(toList());
 		assertTrue(formatUnexpectedCollection("Activation", "scheduled", diff), diff.isEmpty());
 	}
 	
@@ -476,6 +595,28 @@ public class DroolsAssert implements TestRule {
 		session.fireAllRules();
 	}
 	
+	/**
+	 * Makes the first tick as is, then jumps over the ticks without scheduled jobs (timers, event expiration).<br>
+	 * Clock stops at the tick boundary the next job falls into, so the rules see the same time as if clock was moved tick by tick.
+	 * 
+	 * @return number of ticks made
+	 */
+	protected final long tickTime(TimeUnit unit, long ticksMade, long maxTicks) {
+		long ticks = ticksMade == 0 ? 1 : ticksToNextJob(unit, maxTicks - ticksMade);
+		tickTime(ticks, unit);
+		return ticks;
+	}
+	
+	private long ticksToNextJob(TimeUnit unit, long maxTicks) {
+		long tickMs = unit.toMillis(1);
+		if (tickMs == 0 || !(clock instanceof TimerService))
+			return 1;
+		long timeToNextJob = ((TimerService) clock).getTimeToNextJob();
+		if (timeToNextJob < 0)
+			return maxTicks;
+		return min(maxTicks, max(1, (timeToNextJob + tickMs - 1) / tickMs));
+	}
+	
 	/**
 	 * Trigger all scheduled activations if any
 	 * 
@@ -489,24 +630,24 @@ public class DroolsAssert implements TestRule {
 		clock.advanceTime(-MAX_VALUE, MILLISECONDS);
 	}
 	
+	/**
+	 * Skipped if neither clock nor working memory has changed since the previous call
+	 */
 	protected final void retractExpiredEvents() {
+		if (clock.getCurrentTime() == expiredEventsCheckTime && workingMemoryChanges == expiredEventsCheckChanges)
+			return;
 		clock.advanceTime(1, MILLISECONDS);
 		session.fireAllRules();
 		clock.advanceTime(-1, MILLISECONDS);
+		expiredEventsCheckTime = clock.getCurrentTime();
+		expiredEventsCheckChanges = workingMemoryChanges;
 	}
 	
 	/**
-	 * New activations (delta) since previous check.
+	 * New activations (delta) since the checkpoint.
 	 */
-	protected final Map<String, Integer> getNewActivations(Map<String, Integer> activationsSnapshot) {
-		Map<String, Integer> newActivations = new LinkedHashMap<>();
-		for (Entry<String, Integer> activation : activations.entrySet()) {
-			if (!activationsSnapshot.containsKey(activation.getKey()))
-				newActivations.put(activation.getKey(), activation.getValue());
-			else if (activation.getValue() > activationsSnapshot.get(activation.getKey()))
-				newActivations.put(activation.getKey(), activation.getValue() - activationsSnapshot.get(activation.getKey()));
-		}
-		return newActivations;
+	protected final Map<String, Integer> getNewActivations(Checkpoint checkpoint) {
+		return activations.since(checkpoint);
 	}
 	
 	/**
@@ -519,12 +660,15 @@ public class DroolsAssert implements TestRule {
 		stream(objects).forEach(obj -> identityMap.put(obj, null));
 		
 		if (droolsSessionMeta.keepFactsHistory()) {
-			List<String> unknown = stream(objects).filter(obj -> !factsHistory.containsKey(obj)).map(this::factToString).collect(toList());
+			List<String> unknown = stream(objects).filter(obj -> !factsHistory.contains(obj)).map(this::factToString).collect(toList());
 			assertTrue(formatUnexpectedCollection("Fact", "never inserted into the session", unknown), unknown.isEmpty());
 		}
 		
 		retractExpiredEvents();
-		session.getEntryPoints().stream().flatMap(e -> e.getObjects().stream()).forEach(obj -> identityMap.remove(obj));
+		if (factsIndex != null)
+			identityMap.keySet().removeIf(factsIndex::contains);
+		else
+			session.getEntryPoints().stream().flatMap(e -> e.getObjects().stream()).forEach(obj -> identityMap.remove(obj));
 		List<String> retracted = identityMap.keySet().stream().map(this::factToString).collect(toList());
 		assertTrue(formatUnexpectedCollection("Fact", "removed from the session", retracted), retracted.isEmpty());
 	}
@@ -539,13 +683,15 @@ public class DroolsAssert implements TestRule {
 		stream(objects).forEach(obj -> identityMap.put(obj, null));
 		
 		if (droolsSessionMeta.keepFactsHistory()) {
-			List<String> unknown = stream(objects).filter(obj -> !factsHistory.containsKey(obj)).map(this::factToString).collect(toList());
+			List<String> unknown = stream(objects).filter(obj -> !factsHistory.contains(obj)).map(this::factToString).collect(toList());
 			assertTrue(formatUnexpectedCollection("Fact", "never inserted into the session", unknown), unknown.isEmpty());
 		}
 		
 		retractExpiredEvents();
-		List<String> notRetracted = session.getEntryPoints().stream().flatMap(e -> e.getObjects().stream())
-				.filter(obj -> identityMap.containsKey(obj)).map(this::factToString).collect(toList());
+		List<String> notRetracted = factsIndex != null
+				? identityMap.keySet().stream().filter(factsIndex::contains).map(this::factToString).collect(toList())
+				: session.getEntryPoints().stream().flatMap(e -> e.getObjects().stream())
+						.filter(obj -> identityMap.containsKey(obj)).map(this::factToString).collect(toList());
 		assertTrue(formatUnexpectedCollection("Fact", "not retracted from the session", notRetracted), notRetracted.isEmpty());
 	}
 	
@@ -556,6 +702,8 @@ public class DroolsAssert implements TestRule {
 	 */
 	public void assertAllRetracted() {
 		retractExpiredEvents();
+		if (factsIndex != null && factsIndex.size() == 0)
+			return;
 		List<String> facts = session.getEntryPoints().stream().flatMap(e -> e.getObjects().stream()).map(this::factToString).collect(toList());
 		assertTrue(formatUnexpectedCollection("Fact", "not retracted from the session", facts), facts.isEmpty());
 	}
@@ -575,6 +723,7 @@ public class DroolsAssert implements TestRule {
 	 */
 	public void ignoreActivations(String... rulePatterns) {
 		ignored.addAll(asList(rulePatterns));
+		ignoredMatcher = null;
 	}
 	
 	/**
@@ -615,7 +764,7 @@ public class DroolsAssert implements TestRule {
 	 * @see EntryPoint#insert(Object)
 	 */
 	public List<FactHandle> insert(EntryPoint entryPoint, Object... objects) {
-		List<FactHandle> factHandles = new LinkedList<>();
+		List<FactHandle> factHandles = new ArrayList<>(objects.length);
 		for (Object object : objects)
 			factHandles.add(entryPoint.insert(object));
 		return factHandles;
@@ -657,7 +806,7 @@ public class DroolsAssert implements TestRule {
 	 * @see KieSession#fireAllRules()
 	 */
 	public List<FactHandle> insertAndFire(EntryPoint entryPoint, Object... objects) {
-		List<FactHandle> factHandles = new LinkedList<>();
+		List<FactHandle> factHandles = new ArrayList<>(objects.length);
 		for (Object object : objects) {
 			factHandles.add(entryPoint.insert(object));
 			fireAllRules();
@@ -665,6 +814,33 @@ public class DroolsAssert implements TestRule {
 		return factHandles;
 	}
 	
+	/**
+	 * Insert objects firing all rules once after the last one, see {@link BatchInsert} for other fire granularity
+	 * 
+	 * @see BatchInsert#insertAndFire()
+	 */
+	public BatchInsert insertBatch(Iterable<?> objects) {
+		return new BatchInsert(this, objects.iterator(), objects instanceof Collection ? ((Collection<?>) objects).size() : 10);
+	}
+	
+	/**
+	 * Insert objects firing all rules once after the last one, see {@link BatchInsert} for other fire granularity
+	 * 
+	 * @see BatchInsert#insertAndFire()
+	 */
+	public BatchInsert insertBatch(Stream<?> objects) {
+		return new BatchInsert(this, objects.iterator(), 10);
+	}
+	
+	/**
+	 * Replay facts changes recorded by {@link EventJournal}
+	 * 
+	 * @see JournalReplay#replay()
+	 */
+	public JournalReplay replay(File journal) {
+		return new JournalReplay(this, journal);
+	}
+	
 	/**
 	 * Print retained facts in insertion order
 	 * 
@@ -674,7 +850,7 @@ public class DroolsAssert implements TestRule {
 		retractExpiredEvents();
 		List<Object> sortedFacts = session.getEntryPoints().stream().flatMap(e -> e.getObjects().stream()).collect(toList());
 		if (droolsSessionMeta.keepFactsHistory())
-			sort(sortedFacts, (o1, o2) -> factsHistory.get(o1).compareTo(factsHistory.get(o2)));
+			sort(sortedFacts, comparingInt(factsHistory::sequence));
 		
 		StringBuilder sb = new StringBuilder(format("Facts (%s):", sortedFacts.size()));
 		for (Object fact : sortedFacts) {
@@ -685,9 +861,9 @@ public class DroolsAssert implements TestRule {
 	}
 	
 	public void printPerformanceStatistic() {
-		StringBuilder sb = new StringBuilder(format("Performance Statistic, total activations %s:", activations.values().stream().mapToInt(Integer::intValue).sum()));
-		rulesChrono.getPerfStat().values()
-				.forEach(s -> sb.append(format("%n%s - min: %.2f avg: %.2f max: %.2f activations: %d", s.getDomain(), s.getMinTimeMs(), s.getAvgTimeMs(), s.getMaxTimeMs(), s.getLeapsCount())));
+		StringBuilder sb = new StringBuilder(format("Performance Statistic, total activations %s:", activations.total()));
+		rulesChrono.getPerfStat()
+				.forEach((rule, s) -> sb.append(format("%n%s - min: %.2f avg: %.2f max: %.2f activations: %d", rule, s.getMinTimeMs(), s.getAvgTimeMs(), s.getMaxTimeMs(), s.getLeapsCount())));
 		log(sb.toString());
 	}
 	
@@ -713,27 +889,34 @@ public class DroolsAssert implements TestRule {
 		} finally {
 			listeners.forEach(DroolsassertListener::afterScenario);
 		}
-		if (testRulesMeta != null) {
-			try {
-				if (testRulesMeta.checkScheduled())
-					triggerAllScheduledActivations();
-				if (testRulesMeta.expectedCount().length != 0)
-					assertAllActivations(getExpectedCount(testRulesMeta.expectedCount()));
-				else if (isExpectedSet(testRulesMeta.expected()))
-					assertAllActivations(testRulesMeta.expected());
-				else if (!testRulesMeta.expectedCountSource().isEmpty())
-					assertAllActivations(getRulesCountFromSource(getResources(true, false, testRulesMeta.expectedCountSource())));
-				else if (!testRulesMeta.expectedSource().isEmpty())
-					assertAllActivations(getRulesFromSource(getResources(true, false, testRulesMeta.expectedSource())));
-			} catch (Throwable th) {
-				errors.add(0, th);
-			}
+		try {
+			assertTestRules();
+		} catch (Throwable th) {
+			errors.add(0, th);
 		}
 		
 		destroy();
 		assertEmpty(errors);
 	}
 	
+	/**
+	 * Asserts activations expected by {@link TestRules} of the test, if any
+	 */
+	protected void assertTestRules() {
+		if (testRulesMeta == null)
+			return;
+		if (testRulesMeta.checkScheduled())
+			triggerAllScheduledActivations();
+		if (testRulesMeta.expectedCount().length != 0)
+			assertAllActivations(getExpectedCount(testRulesMeta.expectedCount()));
+		else if (isExpectedSet(testRulesMeta.expected()))
+			assertAllActivations(testRulesMeta.expected());
+		else if (!testRulesMeta.expectedCountSource().isEmpty())
+			assertAllActivations(getRulesCountFromSource(getResources(true, false, testRulesMeta.expectedCountSource())));
+		else if (!testRulesMeta.expectedSource().isEmpty())
+			assertAllActivations(getRulesFromSource(getResources(true, false, testRulesMeta.expectedSource())));
+	}
+	
 	public final void initializeIgnoredActivations() {
 		ignored = new HashSet<>();
 		ignoreActivations(droolsSessionMeta.ignoreRules());
@@ -750,19 +933,39 @@ public class DroolsAssert implements TestRule {
 		return expected.length != 1 || !EMPTY.equals(expected[0]);
 	}
 	
+	/**
+	 * Disposes the session or returns it to the pool for {@link DroolsSession#pooledSession()}
+	 */
 	public void destroy() {
-		rulesChrono.reset();
-		session.dispose();
+		if (asyncLog != null)
+			asyncLog.flush();
+		rulesChrono.release();
+		if (sessionPoolKey != null)
+			kieBases.releaseSession(session, sessionPoolKey);
+		else
+			session.dispose();
 	}
 	
 	protected KieSessionConfiguration sessionConfiguration(DroolsSession droolsSessionMeta) throws IOException {
-		return KieServices.Factory.get().newKieSessionConfiguration(
-				loadProperties(() -> this.defaultSessionProperties(), () -> droolsSessionMeta.sessionPropertySource(), () -> droolsSessionMeta.sessionProperties()));
+		return KieServices.Factory.get().newKieSessionConfiguration(sessionProperties(droolsSessionMeta));
+	}
+	
+	/**
+	 * @see KieSessionConfiguration
+	 */
+	protected Properties sessionProperties(DroolsSession droolsSessionMeta) throws IOException {
+		return loadProperties(() -> this.defaultSessionProperties(), () -> droolsSessionMeta.sessionPropertySource(), () -> droolsSessionMeta.sessionProperties());
 	}
 	
 	protected KieBaseConfiguration baseConfiguration(DroolsSession droolsSessionMeta) throws IOException {
-		return KieServices.Factory.get().newKieBaseConfiguration(
-				loadProperties(() -> this.defaultBaseProperties(), () -> droolsSessionMeta.basePropertySource(), () -> droolsSessionMeta.baseProperties()));
+		return KieServices.Factory.get().newKieBaseConfiguration(baseProperties(droolsSessionMeta));
+	}
+	
+	/**
+	 * @see KieBaseConfiguration
+	 */
+	protected Properties baseProperties(DroolsSession droolsSessionMeta) throws IOException {
+		return loadProperties(() -> this.defaultBaseProperties(), () -> droolsSessionMeta.basePropertySource(), () -> droolsSessionMeta.baseProperties());
 	}
 	
 	/**
@@ -796,8 +999,15 @@ public class DroolsAssert implements TestRule {
 		return new String[0]; // { "drools.dump.dir = target/drools-dump" };
 	}
 	
+	/**
+	 * Rules chrono listener is attached to the session under test only, so it measures leaps in session confined mode.<br>
+	 * Statistic is detached from JVM global domains and MBean server, so concurrent tests firing the same rules do not mix their statistic.
+	 */
 	protected RulesChronoAgendaEventListener rulesChrono() {
-		return rulesChrono = new RulesChronoAgendaEventListener();
+		rulesChrono = new RulesChronoAgendaEventListener();
+		rulesChrono.setSessionConfined(true);
+		rulesChrono.setDetached(true);
+		return rulesChrono;
 	}
 	
 	@SuppressWarnings("unchecked")
@@ -810,6 +1020,7 @@ public class DroolsAssert implements TestRule {
 	 */
 	public void setRulesChrono(RulesChronoAgendaEventListener rulesChrono) {
 		session.removeEventListener(this.rulesChrono);
+		this.rulesChrono.release();
 		session.addEventListener(rulesChrono);
 		this.rulesChrono = rulesChrono;
 	}
@@ -821,8 +1032,9 @@ public class DroolsAssert implements TestRule {
 	protected List<DroolsassertListener> listeners() {
 		return asList(
 				new LoggingListener(droolsSessionMeta, this),
-				new ActivationReportBuilder(session, activations),
-				new StateTransitionBuilder(droolsSessionMeta, clock))
+				new ActivationReportBuilder(session, activations.asMap()),
+				new StateTransitionBuilder(droolsSessionMeta, clock),
+				new EventJournal(clock))
 						.stream().filter(DroolsassertListener::enabled).collect(toList());
 	}
 	
@@ -831,33 +1043,57 @@ public class DroolsAssert implements TestRule {
 	}
 	
 	protected boolean isEligibleForAssertion(String rule) {
-		return !ignored.stream().filter(pattern -> nameMatcher.match(pattern, rule)).findFirst().isPresent();
+		if (ignoredMatcher == null)
+			ignoredMatcher = ignoredMatchers.getUnchecked(ImmutableSet.copyOf(ignored));
+		return !ignoredMatcher.matches(rule);
 	}
 	
 	public String factToString(Object fact) {
-		return fact instanceof String ? (String) fact : reflectionToString(fact, SHORT_PREFIX_STYLE);
+		return fact instanceof String ? (String) fact : factFormatter.format(fact);
 	}
 	
 	protected final String formatUnexpectedCollection(String entityName, String message, Collection<String> entities) {
 		return format("%s%s %s:%n%s", entityName, entities.size() == 1 ? " was" : "s were", message, join(entities, LF));
 	}
 	
+	/**
+	 * @see AsyncLog
+	 */
 	public void log(String message) {
-		out.println(formatTime(clock) + SPACE + message);
+		if (asyncLog != null)
+			asyncLog.log(clock.getCurrentTime(), message);
+		else
+			out.println(formatTime(clock) + SPACE + message);
 	}
 	
 	private class ActivationsTracker extends DefaultAgendaEventListener {
 		@Override
 		public void beforeMatchFired(BeforeMatchFiredEvent event) {
-			String ruleName = event.getMatch().getRule().getName();
-			activations.put(ruleName, firstNonNull(activations.get(ruleName), INTEGER_ZERO) + 1);
+			activations.activated(event.getMatch().getRule().getName());
+		}
+	}
+	
+	private class WorkingMemoryChangesTracker implements RuleRuntimeEventListener {
+		@Override
+		public void objectInserted(ObjectInsertedEvent event) {
+			workingMemoryChanges++;
+		}
+		
+		@Override
+		public void objectUpdated(ObjectUpdatedEvent event) {
+			workingMemoryChanges++;
+		}
+		
+		@Override
+		public void objectDeleted(ObjectDeletedEvent event) {
+			workingMemoryChanges++;
 		}
 	}
 	
 	private class FactsHistoryTracker extends DefaultRuleRuntimeEventListener {
 		@Override
 		public void objectInserted(ObjectInsertedEvent event) {
-			factsHistory.putIfAbsent(event.getObject(), factsHistory.size());
+			factsHistory.add(event.getObject());
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+package org.droolsassert;
+
+import static java.lang.reflect.Modifier.isStatic;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+import static org.junit.platform.commons.support.AnnotationSupport.findAnnotation;
+import static org.junit.platform.commons.support.HierarchyTraversalMode.TOP_DOWN;
+import static org.junit.platform.commons.support.ReflectionSupport.findFields;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Optional;
+
+import org.droolsassert.listeners.DroolsassertListener;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
+import org.junit.jupiter.api.extension.ExtensionContext.Store.CloseableResource;
+import org.junit.jupiter.api.extension.InvocationInterceptor;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.jupiter.api.extension.ReflectiveInvocationContext;
+import org.kie.api.KieBase;
+
+/**
+ * JUnit Jupiter counterpart of {@link DroolsAssert} rule.<br>
+ * KieBase described by {@link DroolsSession} of the test class is resolved once before all tests of the class and shared by them.
+ * Each test method gets its own session, or a session per test instance for {@code @TestInstance(PER_CLASS)} tests
+ * (tests of the instance are then run one at a time and {@link TestRules} are not asserted since the session is shared).<br>
+ * {@link DroolsAssert} is injected into non-static fields of type {@link DroolsAssert} and resolved as test method parameter.
+ * <p>
+ * Sessions of different tests do not share state, so the tests can be run by Jupiter parallel executor, see {@link DroolsJupiterTest}.
+ *
+ * <pre>
+ * &#64;DroolsJupiterTest
+ * &#64;DroolsSession("org/droolsassert/rules.drl")
+ * public class DroolsAssertJupiterTest {
+ *     
+ *     &#64;Test
+ *     &#64;TestRules(expected = "atomic int rule")
+ *     public void testInt(DroolsAssert drools) {
+ *         drools.insertAndFire(new AtomicInteger());
+ *         assertEquals(1, drools.getObject(AtomicInteger.class).get());
+ *     }
+ * }
+ * </pre>
+ */
+public class DroolsAssertExtension implements BeforeAllCallback, BeforeEachCallback, AfterEachCallback, ParameterResolver, InvocationInterceptor {
+	
+	private static final Namespace NAMESPACE = Namespace.create(DroolsAssertExtension.class);
+	private static final String KIE_BASE = "kieBase";
+	private static final String DROOLS = "drools";
+	private static final String INSTANCE_SESSION = "instanceSession";
+	
+	@Override
+	public void beforeAll(ExtensionContext context) {
+		DroolsSession droolsSessionMeta = droolsSessionMeta(context);
+		context.getStore(NAMESPACE).put(KIE_BASE, droolsAssert().resolveKieBase(droolsSessionMeta));
+	}
+	
+	@Override
+	public void beforeEach(ExtensionContext context) throws Exception {
+		DroolsAssert drools;
+		if (isSessionPerInstance(context)) {
+			ExtensionContext classContext = context.getParent().get();
+			drools = classContext.getStore(NAMESPACE).getOrComputeIfAbsent(INSTANCE_SESSION,
+					key -> new InstanceSession(newDroolsAssert(classContext, null, "instance")), InstanceSession.class).drools;
+		} else {
+			drools = newDroolsAssert(context, findAnnotation(context.getRequiredTestMethod(), TestRules.class).orElse(null), context.getRequiredTestMethod().getName());
+			context.getStore(NAMESPACE).put(DROOLS, drools);
+		}
+		
+		for (Object testInstance : context.getRequiredTestInstances().getAllInstances()) {
+			for (Field field : findFields(testInstance.getClass(), f -> f.getType() == DroolsAssert.class && !isStatic(f.getModifiers()), TOP_DOWN)) {
+				field.setAccessible(true);
+				field.set(testInstance, drools);
+			}
+		}
+	}
+	
+	@Override
+	public void afterEach(ExtensionContext context) {
+		DroolsAssert drools = context.getStore(NAMESPACE).remove(DROOLS, DroolsAssert.class);
+		if (drools == null)
+			return;
+		try {
+			drools.getListeners().forEach(DroolsassertListener::afterScenario);
+			drools.assertTestRules();
+		} finally {
+			drools.destroy();
+		}
+	}
+	
+	@Override
+	public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+		return parameterContext.getParameter().getType() == DroolsAssert.class && parameterContext.getDeclaringExecutable() instanceof Method;
+	}
+	
+	@Override
+	public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+		return isSessionPerInstance(extensionContext)
+				? extensionContext.getStore(NAMESPACE).get(INSTANCE_SESSION, InstanceSession.class).drools
+				: extensionContext.getStore(NAMESPACE).get(DROOLS, DroolsAssert.class);
+	}
+	
+	/**
+	 * Tests sharing the session per test instance are run one at a time
+	 */
+	@Override
+	public void interceptTestMethod(Invocation<Void> invocation, ReflectiveInvocationContext<Method> invocationContext, ExtensionContext extensionContext) throws Throwable {
+		if (!isSessionPerInstance(extensionContext)) {
+			invocation.proceed();
+			return;
+		}
+		InstanceSession instanceSession = extensionContext.getStore(NAMESPACE).get(INSTANCE_SESSION, InstanceSession.class);
+		synchronized (instanceSession) {
+			invocation.proceed();
+		}
+	}
+	
+	/**
+	 * Override to use {@link DroolsAssert} extension
+	 */
+	protected DroolsAssert droolsAssert() {
+		return new DroolsAssert();
+	}
+	
+	private DroolsAssert newDroolsAssert(ExtensionContext context, TestRules testRulesMeta, String scenario) {
+		DroolsAssert drools = droolsAssert();
+		drools.init(droolsSessionMeta(context), testRulesMeta, context.getStore(NAMESPACE).get(KIE_BASE, KieBase.class));
+		drools.getListeners().forEach(l -> l.beforeScenario(context.getRequiredTestClass().getName(), scenario));
+		return drools;
+	}
+	
+	/**
+	 * Session meta data of the test class or of the enclosing class for nested tests
+	 */
+	private DroolsSession droolsSessionMeta(ExtensionContext context) {
+		for (Class<?> testClass = context.getRequiredTestClass(); testClass != null; testClass = testClass.getEnclosingClass()) {
+			Optional<DroolsSession> droolsSessionMeta = findAnnotation(testClass, DroolsSession.class);
+			if (droolsSessionMeta.isPresent())
+				return droolsSessionMeta.get();
+		}
+		return null;
+	}
+	
+	private boolean isSessionPerInstance(ExtensionContext context) {
+		return context.getTestInstanceLifecycle().orElse(Lifecycle.PER_METHOD) == PER_CLASS;
+	}
+	
+	/**
+	 * Session per test instance is destroyed along with the class context
+	 */
+	private static final class InstanceSession implements CloseableResource {
+		private final DroolsAssert drools;
+		
+		private InstanceSession(DroolsAssert drools) {
+			this.drools = drools;
+		}
+		
+		@Override
+		public void close() {
+			try {
+				drools.getListeners().forEach(DroolsassertListener::afterScenario);
+			} finally {
+				drools.destroy();
+			}
+		}
+	}
+}
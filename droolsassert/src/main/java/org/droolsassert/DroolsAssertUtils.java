@@ -135,12 +135,25 @@ public final class DroolsAssertUtils {
 		return new String[0];
 	}
 	
-	public static String formatTime(SessionPseudoClock clock) {
-		synchronized (clock) {
-			return LocalDateTime.ofInstant(Instant.ofEpochMilli(clock.getCurrentTime() == MAX_VALUE ? -1 : clock.getCurrentTime()), UTC)
-					.format(clock.getCurrentTime() == MAX_VALUE ? DDD_HH_MM_SS_SSS : clock.getCurrentTime() % 1000 == 0
-							? (clock.getCurrentTime() < DAY_MILLISECONDS ? HH_MM_SS : DDD_HH_MM_SS)
-							: (clock.getCurrentTime() < DAY_MILLISECONDS ? HH_MM_SS_SSS : DDD_HH_MM_SS_SSS));
+	public static <T> T newInstance(Class<T> clazz) {
+		try {
+			return clazz.getConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new DroolsAssertException("Cannot instantiate " + clazz.getName(), e);
 		}
 	}
+	
+	public static String formatTime(SessionPseudoClock clock) {
+		return formatTime(clock.getCurrentTime());
+	}
+	
+	/**
+	 * Formats pseudo clock time, the clock is read once by the caller so no locking is needed
+	 */
+	public static String formatTime(long time) {
+		return LocalDateTime.ofInstant(Instant.ofEpochMilli(time == MAX_VALUE ? -1 : time), UTC)
+				.format(time == MAX_VALUE ? DDD_HH_MM_SS_SSS : time % 1000 == 0
+						? (time < DAY_MILLISECONDS ? HH_MM_SS : DDD_HH_MM_SS)
+						: (time < DAY_MILLISECONDS ? HH_MM_SS_SSS : DDD_HH_MM_SS_SSS));
+	}
 }
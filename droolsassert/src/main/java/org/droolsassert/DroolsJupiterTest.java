@@ -0,0 +1,24 @@
+package org.droolsassert;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+
+/**
+ * Jupiter test class with {@link DroolsAssertExtension}.<br>
+ * Tests are run concurrently when Jupiter parallel execution is enabled ({@code junit.jupiter.execution.parallel.enabled = true}).
+ * No resource lock is declared: each test has its own session and {@link KieBaseCache} is thread safe,
+ * invalidating it concurrently only makes other tests compile their {@link org.kie.api.KieBase} again.
+ */
+@Retention(RUNTIME)
+@Target(TYPE)
+@ExtendWith(DroolsAssertExtension.class)
+@Execution(CONCURRENT)
+public @interface DroolsJupiterTest {
+}
@@ -79,6 +79,33 @@ public @interface DroolsSession {
 	 */
 	String[] builderPropertySource() default {};
 	
+	/**
+	 * Explicit KieBase cache key, resources content is not read to calculate the fingerprint if defined.<br>
+	 * KieBase is cached in memory and optionally on disk by this key and configuration properties, so change the key whenever rules change.<br>
+	 * Default - fingerprint of resources content
+	 * 
+	 * @see KieBaseCache
+	 */
+	String cacheKey() default EMPTY;
+	
+	/**
+	 * Parse DRL resources concurrently, helps sessions defined by many resources.<br>
+	 * Can be also enabled by builder property {@code droolsassert.parallelCompilation = true}<br>
+	 * Default - false
+	 * 
+	 * @see ParallelKieBaseBuilder
+	 */
+	boolean parallelCompilation() default false;
+	
+	/**
+	 * Reuse sessions of the same KieBase and session properties instead of creating new session per test.<br>
+	 * Session is reset when {@link DroolsAssert#destroy() destroyed}: facts, agenda, timers and globals are cleared, pseudo clock is rewound to zero.<br>
+	 * Default - false
+	 * 
+	 * @see KieBaseCache#releaseSession(org.kie.api.runtime.KieSession, String)
+	 */
+	boolean pooledSession() default false;
+	
 	/**
 	 * Ignore rules matching patterns while assertion.<br>
 	 * Rules themselves will be executed<br>
@@ -99,12 +126,25 @@ public @interface DroolsSession {
 	
 	/**
 	 * Keep track of all facts ever inserted into the session.<br>
-	 * This gives you some additional features, like logging retained facts in insertion order and some additional sanity checks while assertions, but you may want to skip this for data-heavy tests.<br>
+	 * This gives you some additional features, like logging retained facts in insertion order and some additional sanity checks while assertions.<br>
+	 * Facts are referenced weakly, so the history does not retain retracted or expired facts in memory.<br>
 	 * <br>
 	 * Default - true
+	 * 
+	 * @see FactsHistory
 	 */
 	boolean keepFactsHistory() default true;
 	
+	/**
+	 * Maintain index of the facts by class and identity, so facts lookup and presence assertions do not scan the whole session.<br>
+	 * Worth enabling for sessions with large amount of facts.<br>
+	 * <br>
+	 * Default - false
+	 * 
+	 * @see FactsIndex
+	 */
+	boolean indexFacts() default false;
+	
 	/**
 	 * Log resources loaded for the session<br>
 	 * <br>
@@ -119,6 +159,14 @@ public @interface DroolsSession {
 	 */
 	boolean logFacts() default true;
 	
+	/**
+	 * Formatter of the facts for the log and assertion messages.<br>
+	 * Single instance per formatter class is shared by all sessions.<br>
+	 * <br>
+	 * Default - {@link ReflectiveFactFormatter}
+	 */
+	Class<? extends FactFormatter> factFormatter() default ReflectiveFactFormatter.class;
+	
 	/**
 	 * Enable / disable all logging.<br>
 	 * You may want to disable all logging for performance analysis <br>
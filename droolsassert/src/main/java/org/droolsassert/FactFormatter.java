@@ -0,0 +1,13 @@
+package org.droolsassert;
+
+/**
+ * Formats facts for logging and assertion messages.<br>
+ * Implementation must have public no-arg constructor and be thread safe, single instance per class is shared by all sessions.
+ *
+ * @see DroolsSession#factFormatter()
+ * @see ReflectiveFactFormatter
+ */
+public interface FactFormatter {
+	
+	String format(Object fact);
+}
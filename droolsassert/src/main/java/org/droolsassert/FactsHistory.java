@@ -0,0 +1,130 @@
+package org.droolsassert;
+
+import static java.lang.System.identityHashCode;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * Insertion order of the facts ever inserted into the session.<br>
+ * Facts are kept by weak identity references in an open addressing table, so the history never pins retracted or expired facts in memory.<br>
+ * Facts still referenced by the test or the session are always found, which is enough for ordering retained facts and for "never inserted" sanity checks.
+ *
+ * @see DroolsSession#keepFactsHistory()
+ */
+public class FactsHistory {
+	
+	private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+	private FactReference[] table = new FactReference[64];
+	private int size;
+	private int sequence;
+	
+	/**
+	 * Remember the fact unless it is known already
+	 */
+	public void add(Object fact) {
+		expunge();
+		int hash = hash(fact);
+		int i = find(fact, hash);
+		if (table[i] != null)
+			return;
+		table[i] = new FactReference(fact, hash, sequence++, queue);
+		if (++size > table.length / 2)
+			resize();
+	}
+	
+	public boolean contains(Object fact) {
+		return sequence(fact) >= 0;
+	}
+	
+	/**
+	 * @return insertion sequence number of the fact or -1 if the fact was never inserted
+	 */
+	public int sequence(Object fact) {
+		FactReference reference = table[find(fact, hash(fact))];
+		return reference == null ? -1 : reference.sequence;
+	}
+	
+	/**
+	 * Number of facts still reachable
+	 */
+	public int size() {
+		expunge();
+		return size;
+	}
+	
+	int hash(Object fact) {
+		return identityHashCode(fact);
+	}
+	
+	/**
+	 * @return slot of the fact or the first empty slot
+	 */
+	private int find(Object fact, int hash) {
+		int mask = table.length - 1;
+		int i = hash & mask;
+		for (FactReference reference = table[i]; reference != null; reference = table[i]) {
+			if (reference.hash == hash && reference.get() == fact)
+				return i;
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+	
+	private void resize() {
+		FactReference[] old = table;
+		table = new FactReference[old.length * 2];
+		int mask = table.length - 1;
+		size = 0;
+		for (FactReference reference : old) {
+			if (reference == null || reference.get() == null)
+				continue;
+			int i = reference.hash & mask;
+			while (table[i] != null)
+				i = (i + 1) & mask;
+			table[i] = reference;
+			size++;
+		}
+	}
+	
+	private void expunge() {
+		for (Reference<?> cleared = queue.poll(); cleared != null; cleared = queue.poll()) {
+			int mask = table.length - 1;
+			int i = ((FactReference) cleared).hash & mask;
+			while (table[i] != null && table[i] != cleared)
+				i = (i + 1) & mask;
+			if (table[i] == null)
+				continue; // dropped by resize
+			delete(i);
+		}
+	}
+	
+	/**
+	 * Backward shift deletion keeps probe sequences unbroken without tombstones
+	 */
+	private void delete(int slot) {
+		int mask = table.length - 1;
+		table[slot] = null;
+		size--;
+		for (int i = (slot + 1) & mask; table[i] != null; i = (i + 1) & mask) {
+			int home = table[i].hash & mask;
+			if (((i - home) & mask) >= ((i - slot) & mask)) {
+				table[slot] = table[i];
+				table[i] = null;
+				slot = i;
+			}
+		}
+	}
+	
+	private static class FactReference extends WeakReference<Object> {
+		private final int hash;
+		private final int sequence;
+		
+		FactReference(Object fact, int hash, int sequence, ReferenceQueue<Object> queue) {
+			super(fact, queue);
+			this.hash = hash;
+			this.sequence = sequence;
+		}
+	}
+}
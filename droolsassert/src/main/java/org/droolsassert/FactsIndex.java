@@ -0,0 +1,92 @@
+package org.droolsassert;
+
+import static java.util.Collections.newSetFromMap;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.kie.api.event.rule.ObjectDeletedEvent;
+import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.event.rule.ObjectUpdatedEvent;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+
+/**
+ * Index of the facts in the session (all entry points) by class and identity, maintained from working memory events.<br>
+ * Answers lookup by type and presence checks in proportion to the result rather than the number of facts in the session.<br>
+ * Fact inserted into several entry points is reported once.
+ *
+ * @see DroolsSession#indexFacts()
+ */
+public class FactsIndex implements RuleRuntimeEventListener {
+	
+	private final Map<Object, Integer> facts = new IdentityHashMap<>();
+	private final Map<Class<?>, Set<Object>> factsByClass = new HashMap<>();
+	private final Map<Class<?>, List<Set<Object>>> assignable = new HashMap<>();
+	
+	@Override
+	public void objectInserted(ObjectInsertedEvent event) {
+		add(event.getObject());
+	}
+	
+	@Override
+	public void objectUpdated(ObjectUpdatedEvent event) {
+		if (event.getOldObject() != event.getObject()) {
+			remove(event.getOldObject());
+			add(event.getObject());
+		}
+	}
+	
+	@Override
+	public void objectDeleted(ObjectDeletedEvent event) {
+		remove(event.getOldObject());
+	}
+	
+	private void add(Object fact) {
+		if (facts.merge(fact, 1, Integer::sum) > 1)
+			return;
+		Set<Object> classFacts = factsByClass.get(fact.getClass());
+		if (classFacts == null) {
+			classFacts = newSetFromMap(new IdentityHashMap<>());
+			factsByClass.put(fact.getClass(), classFacts);
+			assignable.clear();
+		}
+		classFacts.add(fact);
+	}
+	
+	private void remove(Object fact) {
+		if (fact == null || facts.computeIfPresent(fact, (k, count) -> count > 1 ? count - 1 : null) != null)
+			return;
+		Set<Object> classFacts = factsByClass.get(fact.getClass());
+		if (classFacts != null)
+			classFacts.remove(fact);
+	}
+	
+	public boolean contains(Object fact) {
+		return facts.containsKey(fact);
+	}
+	
+	public int size() {
+		return facts.size();
+	}
+	
+	/**
+	 * All facts of the class or its subclasses
+	 */
+	public <T> List<T> getObjects(Class<T> clazz) {
+		List<Set<Object>> classesFacts = assignable.computeIfAbsent(clazz, k -> factsByClass.entrySet().stream()
+				.filter(e -> clazz.isAssignableFrom(e.getKey()))
+				.map(e -> e.getValue())
+				.collect(toList()));
+		List<T> objects = new ArrayList<>();
+		for (Set<Object> classFacts : classesFacts) {
+			for (Object fact : classFacts)
+				objects.add(clazz.cast(fact));
+		}
+		return objects;
+	}
+}
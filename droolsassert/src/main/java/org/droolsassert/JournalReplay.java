@@ -0,0 +1,159 @@
+package org.droolsassert;
+
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.droolsassert.util.JsonUtils.fromJson;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.droolsassert.ActivationsCounter.Checkpoint;
+import org.droolsassert.listeners.EventJournal;
+import org.droolsassert.listeners.EventJournalReader;
+import org.droolsassert.listeners.EventJournalReader.EventType;
+import org.droolsassert.listeners.EventJournalReader.JournalEvent;
+import org.kie.api.runtime.rule.EntryPoint;
+import org.kie.api.runtime.rule.FactHandle;
+
+/**
+ * Replays facts inserted, updated and deleted outside the rules, as recorded by {@link EventJournal} with facts state, into the session.<br>
+ * Journal is streamed from disk. Pseudo clock is moved to the time of each record with {@link DroolsAssert#advanceTime(java.util.concurrent.TimeUnit, long)},
+ * so the timers fire at the recorded time and idle periods are skipped.<br>
+ * Changes made by the rules and deletion of the facts inserted by the rules (e.g. expired events) are not replayed, the session makes them again.<br>
+ * Rules are fired where the recorded session fired them and before the clock moves.
+ *
+ * <pre>
+ * Map&lt;String, Integer&gt; activations = drools.replay(journal)
+ * 		.scaledRealTime(10)
+ * 		.replay();
+ * </pre>
+ *
+ * @see DroolsAssert#replay(File)
+ */
+public class JournalReplay {
+	
+	private final DroolsAssert drools;
+	private final File journal;
+	private double speed;
+	private BiFunction<Class<?>, String, Object> factResolver = (type, json) -> fromJson(json, type);
+	
+	JournalReplay(DroolsAssert drools, File journal) {
+		this.drools = drools;
+		this.journal = journal;
+	}
+	
+	/**
+	 * Replay as fast as possible (default)
+	 */
+	public JournalReplay maxSpeed() {
+		this.speed = 0;
+		return this;
+	}
+	
+	/**
+	 * Keep recorded pauses between the changes, scaled down by the factor (2 - twice as fast as recorded)
+	 */
+	public JournalReplay scaledRealTime(double factor) {
+		if (factor <= 0)
+			throw new IllegalArgumentException("Replay speed factor must be positive");
+		this.speed = factor;
+		return this;
+	}
+	
+	/**
+	 * Restore fact from the recorded state (json by default)
+	 */
+	public JournalReplay factResolver(BiFunction<Class<?>, String, Object> factResolver) {
+		this.factResolver = factResolver;
+		return this;
+	}
+	
+	/**
+	 * Replays the journal and prints performance statistic
+	 *
+	 * @return rules activated during the replay
+	 */
+	public Map<String, Integer> replay() {
+		Checkpoint checkpoint = drools.activations.checkpoint();
+		ClassLoader classLoader = ((InternalKnowledgeBase) drools.getSession().getKieBase()).getRootClassLoader();
+		Map<String, Class<?>> classes = new HashMap<>();
+		Map<String, EntryPoint> entryPoints = new HashMap<>();
+		Map<Integer, FactHandle> factHandles = new HashMap<>();
+		boolean pending = false;
+		long events = 0;
+		long startNanos = nanoTime();
+		long startTime = -1;
+		
+		try (EventJournalReader reader = new EventJournalReader(journal)) {
+			while (reader.hasNext()) {
+				JournalEvent event = reader.next();
+				if (startTime < 0)
+					startTime = event.getTime();
+				long now = drools.clock.getCurrentTime();
+				if (event.getTime() > now) {
+					if (pending)
+						drools.fireAllRules();
+					pending = false;
+					if (speed > 0)
+						sleepUninterruptibly(startNanos + (long) (MILLISECONDS.toNanos(event.getTime() - startTime) / speed) - nanoTime(), NANOSECONDS);
+					drools.advanceTime(MILLISECONDS, event.getTime() - now);
+				}
+				
+				if (event.getType() == EventType.FIRED) {
+					if (pending)
+						drools.fireAllRules();
+					pending = false;
+					continue;
+				}
+				if (event.getRule() != null || event.getType() == EventType.DELETED && !factHandles.containsKey(event.getFactId()))
+					continue;
+				
+				EntryPoint entryPoint = entryPoints.computeIfAbsent(event.getEntryPoint(), name -> name == null ? drools.getSession() : drools.getEntryPoint(name));
+				switch (event.getType()) {
+				case INSERTED:
+					factHandles.put(event.getFactId(), entryPoint.insert(fact(event, classes, classLoader)));
+					break;
+				case UPDATED:
+					entryPoint.update(factHandle(event, factHandles), fact(event, classes, classLoader));
+					break;
+				default:
+					entryPoint.delete(factHandles.remove(event.getFactId()));
+				}
+				pending = true;
+				events++;
+			}
+		}
+		if (pending)
+			drools.fireAllRules();
+		
+		drools.log(format("Replayed %s events from %s in %s ms", events, journal.getName(), NANOSECONDS.toMillis(nanoTime() - startNanos)));
+		drools.printPerformanceStatistic();
+		return drools.getNewActivations(checkpoint);
+	}
+	
+	private Object fact(JournalEvent event, Map<String, Class<?>> classes, ClassLoader classLoader) {
+		if (event.getFact() == null)
+			throw new DroolsAssertException("Journal has no facts state, it was recorded with -Ddroolsassert.eventJournalFacts=false");
+		Class<?> type = classes.computeIfAbsent(event.getFactClass(), className -> {
+			try {
+				return Class.forName(className, true, classLoader);
+			} catch (ClassNotFoundException e) {
+				throw new DroolsAssertException("Cannot resolve fact class " + className, e);
+			}
+		});
+		return factResolver.apply(type, event.getFact());
+	}
+	
+	private FactHandle factHandle(JournalEvent event, Map<Integer, FactHandle> factHandles) {
+		FactHandle factHandle = factHandles.get(event.getFactId());
+		if (factHandle == null)
+			throw new DroolsAssertException(format("Fact #%s was not inserted outside the rules", event.getFactId()));
+		return factHandle;
+	}
+}
@@ -0,0 +1,365 @@
+package org.droolsassert;
+
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static com.google.common.hash.Funnels.asOutputStream;
+import static com.google.common.io.ByteStreams.copy;
+import static java.lang.Integer.parseInt;
+import static java.lang.System.getProperty;
+import static java.lang.System.nanoTime;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.apache.commons.lang3.StringUtils.isEmpty;
+import static org.droolsassert.DroolsAssertUtils.directory;
+import static org.droolsassert.util.PerfStat.AGGREGATION_PERIOD_MS;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+
+import org.drools.core.base.MapGlobalResolver;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.drools.core.time.impl.PseudoClockScheduler;
+import org.drools.core.util.Drools;
+import org.drools.core.util.DroolsStreamUtils;
+import org.droolsassert.util.PerfStat;
+import org.droolsassert.util.Stat;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.KieSession;
+import org.springframework.core.io.Resource;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Compiled {@link KieBase} cache shared by all sessions of the JVM.<br>
+ * KieBase is keyed by fingerprint of resources content and configuration properties, so equal sessions declared differently share the same KieBase.<br>
+ * The same KieBase is compiled once even if requested concurrently, while different KieBases are compiled in parallel.
+ * <p>
+ * Cache is bounded, least recently used KieBase is evicted when the size is exceeded. Define system property to change the size
+ *
+ * <pre>
+ * -Ddroolsassert.kieBaseCacheSize=100
+ * </pre>
+ * <p>
+ * Compiled KieBases could be also persisted on disk and reloaded by later JVM runs (opt-in).<br>
+ * File name is built from the fingerprint and Drools version, so changed rules or upgraded Drools never reuse stale KieBase.
+ *
+ * <pre>
+ * -Ddroolsassert.kieBaseDiskCache[=&lt;directory_path&gt;]
+ * </pre>
+ *
+ * <b>directory_path</b> - default target/droolsassert/kbase-cache
+ * <p>
+ * Sessions released by {@link DroolsSession#pooledSession()} tests are reset and kept per KieBase and session properties to be handed out again.<br>
+ * Pooled sessions are disposed along with evicted KieBase.
+ * <p>
+ * Compilation and disk load time of the cache shared by {@link DroolsAssert} instances is recorded into JVM global {@link PerfStat} domains
+ * {@code droolsassert.kieBase.compile} and {@code droolsassert.kieBase.diskLoad} (exposed via MBean server), other caches keep their own statistic.
+ *
+ * @see DroolsAssert#getKieBaseCache()
+ * @see DroolsSession#cacheKey()
+ * @see DroolsSession#pooledSession()
+ */
+public class KieBaseCache {
+	
+	public static final int KIE_BASE_CACHE_SIZE = parseInt(getProperty("droolsassert.kieBaseCacheSize", "100"));
+	private static final String diskCacheProperty = getProperty("droolsassert.kieBaseDiskCache");
+	
+	private final Cache<String, KieBase> kieBases;
+	private final Cache<String, HashCode> resourceHashes = CacheBuilder.newBuilder().maximumSize(10_000).build();
+	private final PerfStat compileStat;
+	private final PerfStat diskLoadStat;
+	private final File diskCacheDirectory;
+	private final Cache<KieBase, Map<String, Queue<KieSession>>> sessionPools = CacheBuilder.newBuilder().weakKeys().build();
+	private final Cache<KieBase, Queue<Runnable>> evictionActions = CacheBuilder.newBuilder().weakKeys().build();
+	
+	public KieBaseCache() {
+		this(false);
+	}
+	
+	/**
+	 * Size and disk cache are defined by system properties
+	 * 
+	 * @param globalStat
+	 *            record statistic into JVM global domains
+	 */
+	KieBaseCache(boolean globalStat) {
+		this(KIE_BASE_CACHE_SIZE, diskCacheProperty == null ? null
+				: new File(isEmpty(diskCacheProperty) || "true".equals(diskCacheProperty) ? "target/droolsassert/kbase-cache" : diskCacheProperty),
+				globalStat);
+	}
+	
+	public KieBaseCache(long maximumSize) {
+		this(maximumSize, null);
+	}
+	
+	/**
+	 * @param maximumSize
+	 *            in-memory cache size
+	 * @param diskCacheDirectory
+	 *            directory to persist compiled KieBases, null to disable
+	 */
+	public KieBaseCache(long maximumSize, File diskCacheDirectory) {
+		this(maximumSize, diskCacheDirectory, false);
+	}
+	
+	private KieBaseCache(long maximumSize, File diskCacheDirectory, boolean globalStat) {
+		compileStat = globalStat ? new PerfStat("droolsassert.kieBase.compile") : PerfStat.detached("droolsassert.kieBase.compile", AGGREGATION_PERIOD_MS);
+		diskLoadStat = globalStat ? new PerfStat("droolsassert.kieBase.diskLoad") : PerfStat.detached("droolsassert.kieBase.diskLoad", AGGREGATION_PERIOD_MS);
+		kieBases = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats()
+				.removalListener((RemovalListener<String, KieBase>) notification -> evicted(notification.getValue()))
+				.build();
+		this.diskCacheDirectory = diskCacheDirectory == null ? null : directory(diskCacheDirectory);
+	}
+	
+	/**
+	 * Returns cached KieBase or compiles it, concurrent requests for the same fingerprint wait for the single compilation.
+	 *
+	 * @see #fingerprint(List, Properties...)
+	 */
+	public KieBase get(String fingerprint, Callable<KieBase> compiler) {
+		try {
+			return kieBases.get(fingerprint, () -> {
+				File file = diskCacheDirectory == null ? null : new File(diskCacheDirectory, fingerprint + "-" + Drools.getFullVersion() + ".kbase");
+				KieBase kieBase = file == null ? null : readFromDisk(file);
+				if (kieBase != null)
+					return kieBase;
+				
+				long startNs = nanoTime();
+				kieBase = compiler.call();
+				compileStat.record(nanoTime() - startNs);
+				if (file != null)
+					writeToDisk(file, kieBase);
+				return kieBase;
+			});
+		} catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+			throwIfUnchecked(e.getCause());
+			throw new DroolsAssertException("Cannot build KieBase", e.getCause());
+		}
+	}
+	
+	/**
+	 * Content fingerprint of the resources and properties.<br>
+	 * Resource content hash is reused while resource location, last modification time and length stay the same.
+	 */
+	public String fingerprint(List<Resource> resources, Properties... properties) {
+		Hasher hasher = Hashing.murmur3_128().newHasher();
+		try {
+			for (Resource resource : resources) {
+				hasher.putUnencodedChars(resource.getURL().toString());
+				hasher.putBytes(resourceHash(resource).asBytes());
+			}
+		} catch (IOException e) {
+			throw new DroolsAssertException("Cannot read resources", e);
+		}
+		hash(hasher, properties);
+		return hasher.hash().toString();
+	}
+	
+	/**
+	 * Fingerprint of explicit cache key and properties, resources are not read.
+	 * 
+	 * @see DroolsSession#cacheKey()
+	 */
+	public String fingerprint(String cacheKey, Properties... properties) {
+		Hasher hasher = Hashing.murmur3_128().newHasher();
+		hasher.putUnencodedChars(cacheKey);
+		hash(hasher, properties);
+		return hasher.hash().toString();
+	}
+	
+	private void hash(Hasher hasher, Properties... properties) {
+		for (Properties props : properties) {
+			hasher.putInt(props.size());
+			for (Entry<Object, Object> property : new TreeMap<>(props).entrySet())
+				hasher.putUnencodedChars(property.getKey() + "=" + property.getValue() + "\n");
+		}
+	}
+	
+	private HashCode resourceHash(Resource resource) throws IOException {
+		String version = resource.getURL() + "@" + resource.lastModified() + ":" + resource.contentLength();
+		HashCode hash = resourceHashes.getIfPresent(version);
+		if (hash == null) {
+			Hasher hasher = Hashing.murmur3_128().newHasher();
+			try (InputStream in = resource.getInputStream()) {
+				copy(in, asOutputStream(hasher));
+			}
+			hash = hasher.hash();
+			resourceHashes.put(version, hash);
+		}
+		return hash;
+	}
+	
+	/**
+	 * Unreadable file (e.g. incompatible classes) is deleted and the KieBase is compiled again
+	 */
+	private KieBase readFromDisk(File file) {
+		if (!file.exists())
+			return null;
+		long startNs = nanoTime();
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+			KieBase kieBase = (KieBase) DroolsStreamUtils.streamIn(in, classLoader());
+			diskLoadStat.record(nanoTime() - startNs);
+			return kieBase;
+		} catch (Exception e) {
+			file.delete();
+			return null;
+		}
+	}
+	
+	/**
+	 * Written to temporary file first and then moved, so concurrent JVMs never read partially written KieBase
+	 */
+	private void writeToDisk(File file, KieBase kieBase) {
+		File tmp = null;
+		try {
+			tmp = File.createTempFile(file.getName(), ".tmp", diskCacheDirectory);
+			try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp))) {
+				DroolsStreamUtils.streamOut(out, kieBase);
+			}
+			try {
+				Files.move(tmp.toPath(), file.toPath(), ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp.toPath(), file.toPath(), REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			throw new DroolsAssertException("Cannot write KieBase to " + file, e);
+		} finally {
+			if (tmp != null)
+				tmp.delete();
+		}
+	}
+	
+	private static ClassLoader classLoader() {
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		return classLoader == null ? KieBaseCache.class.getClassLoader() : classLoader;
+	}
+	
+	/**
+	 * Hits, misses, evictions and total compilation (load) time
+	 */
+	public CacheStats getStats() {
+		return kieBases.stats();
+	}
+	
+	/**
+	 * Compilation time statistic of this cache
+	 */
+	public Stat getCompileStat() {
+		return compileStat.getStat();
+	}
+	
+	/**
+	 * Loading from disk cache time statistic of this cache
+	 */
+	public Stat getDiskLoadStat() {
+		return diskLoadStat.getStat();
+	}
+	
+	/**
+	 * Takes reset session from the pool
+	 *
+	 * @param sessionKey
+	 *            session configuration identity, sessions created with different configuration are never mixed
+	 * @return pooled session or null if the pool is empty
+	 */
+	public KieSession acquireSession(KieBase kieBase, String sessionKey) {
+		return sessionPool(kieBase, sessionKey).poll();
+	}
+	
+	/**
+	 * Resets the session and returns it to the pool.<br>
+	 * Event listeners, facts, agenda, timers and globals are cleared, pseudo clock is rewound to zero.<br>
+	 * Session which cannot be reset is disposed, the reason is printed to diagnose the pool which does not retain sessions.
+	 */
+	public void releaseSession(KieSession session, String sessionKey) {
+		try {
+			reset(session);
+		} catch (RuntimeException e) {
+			new DroolsAssertException("Cannot reset session " + sessionKey + ", disposed instead of pooling", e).printStackTrace();
+			session.dispose();
+			return;
+		}
+		sessionPool(session.getKieBase(), sessionKey).offer(session);
+	}
+	
+	private Queue<KieSession> sessionPool(KieBase kieBase, String sessionKey) {
+		return sessionPools.asMap()
+				.computeIfAbsent(kieBase, k -> new ConcurrentHashMap<>())
+				.computeIfAbsent(sessionKey, k -> new ConcurrentLinkedQueue<>());
+	}
+	
+	protected void reset(KieSession session) {
+		new ArrayList<>(session.getAgendaEventListeners()).forEach(session::removeEventListener);
+		new ArrayList<>(session.getRuleRuntimeEventListeners()).forEach(session::removeEventListener);
+		new ArrayList<>(session.getProcessEventListeners()).forEach(session::removeEventListener);
+		
+		StatefulKnowledgeSessionImpl sessionImpl = (StatefulKnowledgeSessionImpl) session;
+		sessionImpl.reset();
+		if (sessionImpl.getGlobalResolver() instanceof MapGlobalResolver)
+			((MapGlobalResolver) sessionImpl.getGlobalResolver()).clear();
+		if (session.getSessionClock() instanceof PseudoClockScheduler)
+			((PseudoClockScheduler) session.getSessionClock()).setStartupTime(0);
+	}
+	
+	/**
+	 * Run the action when the KieBase is evicted, e.g. release statistic recorded while the KieBase was built
+	 */
+	public void onEviction(KieBase kieBase, Runnable action) {
+		evictionActions.asMap().computeIfAbsent(kieBase, k -> new ConcurrentLinkedQueue<>()).add(action);
+	}
+	
+	private void evicted(KieBase kieBase) {
+		if (kieBase == null)
+			return;
+		Map<String, Queue<KieSession>> pools = sessionPools.asMap().remove(kieBase);
+		if (pools != null)
+			pools.values().forEach(pool -> pool.forEach(KieSession::dispose));
+		Queue<Runnable> actions = evictionActions.asMap().remove(kieBase);
+		if (actions != null)
+			actions.forEach(Runnable::run);
+	}
+	
+	/**
+	 * Number of idle sessions in the pools
+	 */
+	public int pooledSessions() {
+		return sessionPools.asMap().values().stream().flatMap(pools -> pools.values().stream()).mapToInt(Queue::size).sum();
+	}
+	
+	public long size() {
+		return kieBases.size();
+	}
+	
+	/**
+	 * Evicts all KieBases and disposes pooled sessions
+	 */
+	public void invalidateAll() {
+		kieBases.invalidateAll();
+	}
+}
@@ -0,0 +1,182 @@
+package org.droolsassert;
+
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.lang.System.out;
+import static java.lang.Thread.currentThread;
+import static java.util.Collections.list;
+import static java.util.stream.Collectors.toList;
+import static org.apache.commons.lang3.StringUtils.LF;
+import static org.apache.commons.lang3.StringUtils.endsWithIgnoreCase;
+import static org.apache.commons.lang3.StringUtils.join;
+import static org.droolsassert.DroolsAssertUtils.directory;
+import static org.kie.api.io.ResourceType.determineResourceType;
+import static org.kie.internal.io.ResourceFactory.newUrlResource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.drools.compiler.builder.impl.KnowledgeBuilderConfigurationImpl;
+import org.drools.compiler.compiler.DrlParser;
+import org.drools.compiler.compiler.DroolsParserException;
+import org.drools.compiler.lang.descr.PackageDescr;
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.impl.KnowledgeBaseFactory;
+import org.drools.core.io.impl.DescrResource;
+import org.droolsassert.util.PerfStat;
+import org.kie.api.KieBase;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.io.ResourceType;
+import org.kie.internal.builder.CompositeKnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilderFactory;
+import org.kie.internal.builder.conf.DumpDirOption;
+import org.springframework.core.io.Resource;
+
+/**
+ * Builds {@link KieBase} parsing DRL resources concurrently (common fork-join pool) and compiling parsed packages in a single batch.<br>
+ * Other resource types (DSL, DSLR, decision tables etc.) are added to the batch as is.<br>
+ * Parse time per resource is recorded into {@link PerfStat} domain {@code droolsassert.parse.<resource path>} and logged along with resources if requested,
+ * the path is relative to the classpath root when the resource is found on the classpath.
+ * Statistic is kept until {@link #release()}, which {@link DroolsAssert} calls when the KieBase is evicted from {@link KieBaseCache}.
+ * <p>
+ * Enable with {@link DroolsSession#parallelCompilation()} or builder property
+ *
+ * <pre>
+ * droolsassert.parallelCompilation = true
+ * </pre>
+ *
+ * Rule consequences within a package are compiled in parallel by Drools itself, see {@code drools.parallelRulesBuildThreshold} builder property.
+ */
+public class ParallelKieBaseBuilder {
+	
+	public static final String PARALLEL_COMPILATION = "droolsassert.parallelCompilation";
+	
+	private final Properties builderProperties;
+	private final KieBaseConfiguration baseConfiguration;
+	private final boolean logResources;
+	private final List<PerfStat> parseStats = new CopyOnWriteArrayList<>();
+	private List<String> classpathRoots;
+	
+	public ParallelKieBaseBuilder(Properties builderProperties, KieBaseConfiguration baseConfiguration, boolean logResources) {
+		this.builderProperties = builderProperties;
+		this.baseConfiguration = baseConfiguration;
+		this.logResources = logResources;
+	}
+	
+	public static boolean isParallelCompilation(DroolsSession droolsSessionMeta, Properties builderProperties) {
+		return droolsSessionMeta.parallelCompilation() || parseBoolean(builderProperties.getProperty(PARALLEL_COMPILATION));
+	}
+	
+	/**
+	 * Parse statistic is released if the KieBase cannot be built
+	 */
+	public KieBase build(List<Resource> resources) {
+		try {
+			return buildKieBase(resources);
+		} catch (RuntimeException e) {
+			release();
+			throw e;
+		}
+	}
+	
+	private KieBase buildKieBase(List<Resource> resources) {
+		String dumpDir = builderProperties.getProperty(DumpDirOption.PROPERTY_NAME);
+		if (dumpDir != null)
+			directory(new File(dumpDir));
+		KnowledgeBuilderConfigurationImpl builderConfiguration = (KnowledgeBuilderConfigurationImpl) KnowledgeBuilderFactory.newKnowledgeBuilderConfiguration(builderProperties);
+		try {
+			classpathRoots = list(currentThread().getContextClassLoader().getResources("")).stream().map(URL::toString).collect(toList());
+		} catch (IOException e) {
+			throw new DroolsAssertException("Cannot get classpath roots", e);
+		}
+		
+		List<Object> parsed = resources.parallelStream()
+				.map(resource -> isDrl(resource) ? parse(resource, builderConfiguration) : resource)
+				.collect(toList());
+		
+		KnowledgeBuilder knowledgeBuilder = KnowledgeBuilderFactory.newKnowledgeBuilder(builderConfiguration);
+		CompositeKnowledgeBuilder batch = knowledgeBuilder.batch();
+		try {
+			for (Object resource : parsed) {
+				if (resource instanceof PackageDescr)
+					batch.add(new DescrResource((PackageDescr) resource), ResourceType.DESCR);
+				else
+					batch.add(newUrlResource(((Resource) resource).getURL()), determineResourceType(((Resource) resource).getFilename()));
+			}
+		} catch (IOException e) {
+			throw new DroolsAssertException("Cannot get resources", e);
+		}
+		batch.build();
+		if (knowledgeBuilder.hasErrors())
+			throw new DroolsAssertException(format("Error while creating KieBase%n%s", knowledgeBuilder.getErrors()));
+		
+		InternalKnowledgeBase kieBase = KnowledgeBaseFactory.newKnowledgeBase(baseConfiguration);
+		kieBase.addPackages(knowledgeBuilder.getKnowledgePackages());
+		return kieBase;
+	}
+	
+	/**
+	 * Release parse statistic recorded by this builder
+	 */
+	public void release() {
+		parseStats.forEach(PerfStat::release);
+		parseStats.clear();
+	}
+	
+	protected boolean isDrl(Resource resource) {
+		return endsWithIgnoreCase(resource.getFilename(), ".drl");
+	}
+	
+	protected PackageDescr parse(Resource resource, KnowledgeBuilderConfigurationImpl builderConfiguration) {
+		PerfStat parseStat = parseStat(resource);
+		long startNs = nanoTime();
+		DrlParser parser = new DrlParser(builderConfiguration.getLanguageLevel());
+		try (InputStream in = resource.getInputStream()) {
+			PackageDescr packageDescr = parser.parse(newUrlResource(resource.getURL()), in);
+			if (parser.hasErrors()) {
+				List<String> errors = new ArrayList<>();
+				parser.getErrors().forEach(error -> errors.add(error.getMessage()));
+				throw new DroolsAssertException(format("Cannot parse %s%n%s", resource, join(errors, LF)));
+			}
+			long timeNs = parseStat.record(nanoTime() - startNs);
+			if (logResources)
+				out.println(format("%s parsed in %.2fms", resource, timeNs / 1_000_000.0));
+			return packageDescr;
+		} catch (IOException | DroolsParserException e) {
+			throw new DroolsAssertException("Cannot parse " + resource, e);
+		}
+	}
+	
+	private PerfStat parseStat(Resource resource) {
+		try {
+			PerfStat parseStat = new PerfStat("droolsassert.parse." + resourcePath(resource));
+			parseStats.add(parseStat);
+			return parseStat;
+		} catch (IOException e) {
+			throw new DroolsAssertException("Cannot get resource path " + resource, e);
+		}
+	}
+	
+	/**
+	 * Path relative to the classpath root or jar, full URL otherwise
+	 */
+	protected String resourcePath(Resource resource) throws IOException {
+		String url = resource.getURL().toString();
+		int jarEntry = url.lastIndexOf("!/");
+		if (jarEntry >= 0)
+			return url.substring(jarEntry + 2);
+		for (String root : classpathRoots) {
+			if (url.startsWith(root))
+				return url.substring(root.length());
+		}
+		return url;
+	}
+}
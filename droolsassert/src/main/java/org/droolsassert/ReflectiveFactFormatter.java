@@ -0,0 +1,161 @@
+package org.droolsassert;
+
+import static java.lang.Integer.parseInt;
+import static java.lang.System.getProperty;
+import static java.lang.invoke.MethodType.methodType;
+import static java.lang.reflect.Modifier.isStatic;
+import static java.lang.reflect.Modifier.isTransient;
+import static org.apache.commons.lang3.ClassUtils.getShortClassName;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Formats fact fields in {@code ToStringStyle.SHORT_PREFIX_STYLE} manner, e.g. {@code Dialing[callerNumber=11111,calleeNumber=22222]}.<br>
+ * Field getters are resolved once per class into method handles, so facts are not walked reflectively on every log record.
+ * <p>
+ * Field values are formatted with {@code toString()} unless nested formatting depth is configured,
+ * in which case objects not overriding {@code toString()} are formatted field by field up to the depth.<br>
+ * Output is truncated to the maximum length. Defaults can be changed with system properties
+ *
+ * <pre>
+ * -Ddroolsassert.factMaxDepth=0
+ * -Ddroolsassert.factMaxLength=10000
+ * </pre>
+ *
+ * Override {@link #include(Field)} to filter fields out.
+ */
+public class ReflectiveFactFormatter implements FactFormatter {
+	
+	private static final int FACT_MAX_DEPTH = parseInt(getProperty("droolsassert.factMaxDepth", "0"));
+	private static final int FACT_MAX_LENGTH = parseInt(getProperty("droolsassert.factMaxLength", "10000"));
+	private static final String TRUNCATED = "...";
+	
+	private final int maxDepth;
+	private final int maxLength;
+	
+	private final ClassValue<FieldGetter[]> fieldGetters = new ClassValue<FieldGetter[]>() {
+		@Override
+		protected FieldGetter[] computeValue(Class<?> type) {
+			return fieldGetters(type);
+		}
+	};
+	
+	private final ClassValue<Boolean> nestedFormatting = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			try {
+				return !type.getName().startsWith("java.") && !type.isEnum() && type.getMethod("toString").getDeclaringClass() == Object.class;
+			} catch (NoSuchMethodException e) {
+				return false;
+			}
+		}
+	};
+	
+	public ReflectiveFactFormatter() {
+		this(FACT_MAX_DEPTH, FACT_MAX_LENGTH);
+	}
+	
+	/**
+	 * @param maxDepth
+	 *            nested objects formatting depth, 0 - use {@code toString()} of the field values
+	 * @param maxLength
+	 *            maximum length of the fact string
+	 */
+	public ReflectiveFactFormatter(int maxDepth, int maxLength) {
+		this.maxDepth = maxDepth;
+		this.maxLength = maxLength;
+	}
+	
+	@Override
+	public String format(Object fact) {
+		StringBuilder sb = new StringBuilder();
+		if (fact == null)
+			sb.append("<null>");
+		else
+			appendFields(sb, fact, 0);
+		if (sb.length() > maxLength) {
+			sb.setLength(maxLength);
+			sb.append(TRUNCATED);
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * Static, transient and synthetic fields are never included
+	 */
+	protected boolean include(Field field) {
+		return true;
+	}
+	
+	protected void appendFields(StringBuilder sb, Object object, int depth) {
+		sb.append(getShortClassName(object.getClass())).append('[');
+		FieldGetter[] getters = fieldGetters.get(object.getClass());
+		for (int i = 0; i < getters.length && sb.length() <= maxLength; i++) {
+			if (i > 0)
+				sb.append(',');
+			sb.append(getters[i].name).append('=');
+			appendValue(sb, getters[i].get(object), depth);
+		}
+		sb.append(']');
+	}
+	
+	protected void appendValue(StringBuilder sb, Object value, int depth) {
+		if (value == null) {
+			sb.append("<null>");
+		} else if (value.getClass().isArray()) {
+			sb.append('{');
+			int length = Array.getLength(value);
+			for (int i = 0; i < length && sb.length() <= maxLength; i++) {
+				if (i > 0)
+					sb.append(',');
+				appendValue(sb, Array.get(value, i), depth);
+			}
+			sb.append('}');
+		} else if (depth < maxDepth && nestedFormatting.get(value.getClass())) {
+			appendFields(sb, value, depth + 1);
+		} else {
+			sb.append(value);
+		}
+	}
+	
+	private FieldGetter[] fieldGetters(Class<?> type) {
+		List<FieldGetter> getters = new ArrayList<>();
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+			for (Field field : clazz.getDeclaredFields()) {
+				if (isStatic(field.getModifiers()) || isTransient(field.getModifiers()) || field.isSynthetic() || field.getName().indexOf('$') != -1 || !include(field))
+					continue;
+				try {
+					field.setAccessible(true);
+					getters.add(new FieldGetter(field.getName(), lookup.unreflectGetter(field).asType(methodType(Object.class, Object.class))));
+				} catch (IllegalAccessException | RuntimeException e) {
+					// inaccessible field is not formatted
+				}
+			}
+		}
+		return getters.toArray(new FieldGetter[0]);
+	}
+	
+	private static final class FieldGetter {
+		private final String name;
+		private final MethodHandle getter;
+		
+		private FieldGetter(String name, MethodHandle getter) {
+			this.name = name;
+			this.getter = getter;
+		}
+		
+		private Object get(Object object) {
+			try {
+				return (Object) getter.invokeExact(object);
+			} catch (Throwable e) {
+				return "<" + e + ">";
+			}
+		}
+	}
+}
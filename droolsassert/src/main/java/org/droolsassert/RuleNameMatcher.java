@@ -0,0 +1,121 @@
+package org.droolsassert;
+
+import static java.util.regex.Pattern.compile;
+import static java.util.regex.Pattern.quote;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+/**
+ * Matches rule names against a fixed set of ant-style patterns (same as {@link DroolsAssert#nameMatcher}).<br>
+ * Patterns are compiled once: literal patterns go to a hash set, patterns with wildcards are indexed in a trie by their literal prefix
+ * and compiled to regular expressions, so a rule name is checked only against the patterns sharing its prefix.
+ * Patterns with template variables ({@code {name:regex}}) are matched with {@link AntPathMatcher}.<br>
+ * Results are memoized per rule name, the instance is thread safe.
+ */
+public class RuleNameMatcher {
+	
+	private static final PathMatcher antMatcher = new AntPathMatcher("\n");
+	
+	private final Set<String> literals = new HashSet<>();
+	private final TrieNode root = new TrieNode();
+	private final Map<String, Boolean> matches = new ConcurrentHashMap<>();
+	
+	public RuleNameMatcher(Collection<String> patterns) {
+		for (String pattern : patterns)
+			add(pattern);
+	}
+	
+	/**
+	 * @return true if rule name matches any of the patterns
+	 */
+	public boolean matches(String rule) {
+		return matches.computeIfAbsent(rule, this::match);
+	}
+	
+	private void add(String pattern) {
+		int wildcard = firstWildcard(pattern);
+		if (wildcard < 0) {
+			literals.add(pattern);
+			return;
+		}
+		TrieNode node = root;
+		for (int i = 0; i < wildcard; i++)
+			node = node.children.computeIfAbsent(pattern.charAt(i), c -> new TrieNode());
+		node.patterns.add(new CompiledPattern(pattern));
+	}
+	
+	private boolean match(String rule) {
+		if (literals.contains(rule))
+			return true;
+		TrieNode node = root;
+		for (int i = 0; node != null; i++) {
+			for (CompiledPattern pattern : node.patterns) {
+				if (pattern.matches(rule))
+					return true;
+			}
+			node = i < rule.length() ? node.children.get(rule.charAt(i)) : null;
+		}
+		return false;
+	}
+	
+	private static int firstWildcard(String pattern) {
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			if (c == '*' || c == '?' || c == '{')
+				return i;
+		}
+		return -1;
+	}
+	
+	private static final class TrieNode {
+		private final Map<Character, TrieNode> children = new HashMap<>();
+		private final List<CompiledPattern> patterns = new ArrayList<>();
+	}
+	
+	private static final class CompiledPattern {
+		private final String pattern;
+		private final Pattern regex;
+		
+		private CompiledPattern(String pattern) {
+			this.pattern = pattern;
+			this.regex = pattern.indexOf('{') < 0 && pattern.indexOf('\n') < 0 ? toRegex(pattern) : null;
+		}
+		
+		/**
+		 * Within a single path segment (rule name without line breaks) ant wildcards are plain glob
+		 */
+		private boolean matches(String rule) {
+			return regex == null || rule.indexOf('\n') >= 0
+					? antMatcher.match(pattern, rule)
+					: regex.matcher(rule).matches();
+		}
+		
+		private static Pattern toRegex(String pattern) {
+			StringBuilder regex = new StringBuilder();
+			int literalStart = 0;
+			for (int i = 0; i < pattern.length(); i++) {
+				char c = pattern.charAt(i);
+				if (c != '*' && c != '?')
+					continue;
+				if (i > literalStart)
+					regex.append(quote(pattern.substring(literalStart, i)));
+				regex.append(c == '*' ? ".*" : ".");
+				literalStart = i + 1;
+			}
+			if (literalStart < pattern.length())
+				regex.append(quote(pattern.substring(literalStart)));
+			return compile(regex.toString());
+		}
+	}
+}
@@ -4,6 +4,7 @@ import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.collect.Sets.newHashSet;
 import static java.lang.Boolean.parseBoolean;
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static java.util.Arrays.stream;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.StreamSupport.stream;
@@ -34,6 +35,7 @@ import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.lang3.StringUtils;
 import org.droolsassert.DroolsAssert;
 import org.droolsassert.DroolsAssertException;
+import org.droolsassert.FactFormatter;
 import org.droolsassert.listeners.DroolsassertListener;
 import org.droolsassert.util.MvelProcessor;
 import org.jbehave.core.annotations.Alias;
@@ -88,6 +90,8 @@ import com.google.common.io.Resources;
  *     atomic int rule
  *     atomic long rule
  * </pre>
+ * 
+ * Steps instance keeps the state of the story being run, use {@link IsolatedStepsFactory} to run stories in parallel.
  */
 public class DroolsAssertSteps<A extends DroolsAssert> extends NullStoryReporter {
 	
@@ -125,7 +129,10 @@ public class DroolsAssertSteps<A extends DroolsAssert> extends NullStoryReporter
 	@Alias("imports $imports")
 	public void givenImports(String imports) {
 		Splitter.onPattern(NL).trimResults().omitEmptyStrings().split(imports)
-				.forEach(line -> mvelProcessor.importPackage(line));
+				.forEach(line -> {
+					mvelProcessor.importPackage(line);
+					this.imports.add(line);
+				});
 	}
 	
 	/**
@@ -142,6 +149,10 @@ public class DroolsAssertSteps<A extends DroolsAssert> extends NullStoryReporter
 	 * base property source: classpath:/kie.properties
 	 * session property source: classpath:/session.properties
 	 * ignore rules: 'before', 'after'
+	 * cache key: rules-v1
+	 * parallel compilation: true
+	 * pooled session: true
+	 * index facts: true
 	 * log resources: true
 	 * </pre>
 	 */
@@ -183,12 +194,27 @@ public class DroolsAssertSteps<A extends DroolsAssert> extends NullStoryReporter
 			} else if (line.matches("\\s*ignore rules.*")) {
 				line = line.replaceFirst("\\s*ignore rules:?", "");
 				current = ignoreRules;
+			} else if (line.matches("\\s*cache key.*")) {
+				droolsSessionMeta.cacheKey = line.replaceFirst("\\s*cache key:?\\s+", "");
+				continue;
+			} else if (line.matches("\\s*parallel compilation.*")) {
+				droolsSessionMeta.parallelCompilation = parseBoolean(line.replaceFirst("\\s*parallel compilation:?\\s+", ""));
+				continue;
+			} else if (line.matches("\\s*pooled session.*")) {
+				droolsSessionMeta.pooledSession = parseBoolean(line.replaceFirst("\\s*pooled session:?\\s+", ""));
+				continue;
 			} else if (line.matches("\\s*log resources.*")) {
 				droolsSessionMeta.logResources = parseBoolean(line.replaceFirst("\\s*log resources:?\\s+", ""));
 				continue;
 			} else if (line.matches("\\s*keep facts history.*")) {
 				droolsSessionMeta.keepFactsHistory = parseBoolean(line.replaceFirst("\\s*keep facts history:?\\s+", ""));
 				continue;
+			} else if (line.matches("\\s*index facts.*")) {
+				droolsSessionMeta.indexFacts = parseBoolean(line.replaceFirst("\\s*index facts:?\\s+", ""));
+				continue;
+			} else if (line.matches("\\s*fact formatter.*")) {
+				droolsSessionMeta.factFormatter = this.<Object> classOf(line.replaceFirst("\\s*fact formatter:?\\s+", "")).asSubclass(FactFormatter.class);
+				continue;
 			} else if (line.matches("\\s*log facts.*")) {
 				droolsSessionMeta.logFacts = parseBoolean(line.replaceFirst("\\s*log facts:?\\s+", ""));
 				continue;
@@ -235,14 +261,24 @@ public class DroolsAssertSteps<A extends DroolsAssert> extends NullStoryReporter
 	 * Given new session for scenario
 	 * 	check scheduled
 	 * 	ignore * ${with}(and)[??]
+	 * 
+	 * Scenario:  test 5
+	 * Given new session for scenario, pooled
 	 * </pre>
+	 * 
+	 * Pooled session is taken from the pool of reset sessions if available, see {@link DroolsSession#pooledSession()}
 	 */
 	@Given("new session for scenario$sessionMeta")
 	public void givenNewSessionForScenario(String sessionMeta) {
 		testRulesMeta = new TestRulesProxy();
+		DroolsSessionProxy scenarioSessionMeta = droolsSessionMeta.clone();
 		List<String> ignore = new ArrayList<>();
 		
 		for (String line : sessionMeta.split(NL)) {
+			if (line.matches("\\s*,?\\s*pooled.*")) {
+				line = line.replaceFirst("\\s*,?\\s*pooled", "");
+				scenarioSessionMeta.pooledSession = true;
+			}
 			if (line.matches("\\s*,?\\s*check scheduled.*")) {
 				line = line.replaceFirst("\\s*,?\\s*check scheduled", "");
 				testRulesMeta.checkScheduled = true;
@@ -259,7 +295,7 @@ public class DroolsAssertSteps<A extends DroolsAssert> extends NullStoryReporter
 		if (!ignore.isEmpty())
 			testRulesMeta.ignore = ignore.toArray(new String[0]);
 		
-		drools.init(newDroolsSessionProxy(droolsSessionMeta), newTestRulesProxy(testRulesMeta));
+		drools.init(newDroolsSessionProxy(scenarioSessionMeta), newTestRulesProxy(testRulesMeta));
 		drools.getListeners().forEach(builder -> builder.beforeScenario(story.getPath(), scenario.getTitle()));
 		globals.entrySet().forEach(e -> drools.setGlobal(e.getKey(), e.getValue()));
 	}
@@ -328,6 +364,38 @@ public class DroolsAssertSteps<A extends DroolsAssert> extends NullStoryReporter
 		drools.insertTo(entryPoint, evalVariables(variables));
 	}
 	
+	/**
+	 * Insert facts in batch firing all rules once after the last one or after every n facts.<br>
+	 * Variables holding collections or arrays are inserted element by element.
+	 * 
+	 * <pre>
+	 * When insert batch dialings
+	 * When insert batch of 1000 and fire dialings
+	 * When insert into calls batch of 1000 and fire dialings
+	 * </pre>
+	 * 
+	 * @see DroolsAssert#insertBatch(Iterable)
+	 */
+	@When("insert batch $variables")
+	public void whenInsertBatch(String variables) {
+		drools.insertBatch(flatten(evalVariables(variables))).insertAndFire();
+	}
+	
+	@When(value = "insert batch of $count and fire $variables", priority = 1)
+	public void whenInsertBatch(int count, String variables) {
+		drools.insertBatch(flatten(evalVariables(variables))).fireEvery(count).insertAndFire();
+	}
+	
+	@When(value = "insert into $entryPoint batch $variables", priority = 1)
+	public void whenInsertBatch(String entryPoint, String variables) {
+		drools.insertBatch(flatten(evalVariables(variables))).into(entryPoint).insertAndFire();
+	}
+	
+	@When(value = "insert into $entryPoint batch of $count and fire $variables", priority = 2)
+	public void whenInsertBatch(String entryPoint, int count, String variables) {
+		drools.insertBatch(flatten(evalVariables(variables))).into(entryPoint).fireEvery(count).insertAndFire();
+	}
+	
 	@When("fire all rules")
 	public void whenFireAllRules() {
 		drools.fireAllRules();
@@ -485,6 +553,19 @@ public class DroolsAssertSteps<A extends DroolsAssert> extends NullStoryReporter
 				.map(var -> mvelProcessor.evaluate(var)).toArray();
 	}
 	
+	protected List<Object> flatten(Object[] objects) {
+		List<Object> flat = new ArrayList<>(objects.length);
+		for (Object object : objects) {
+			if (object instanceof Iterable)
+				((Iterable<?>) object).forEach(flat::add);
+			else if (object instanceof Object[])
+				flat.addAll(asList((Object[]) object));
+			else
+				flat.add(object);
+		}
+		return flat;
+	}
+	
 	protected void defineVariable(String expression, boolean droolsGlobal) {
 		String[] rhsArr = expression.split(LHS_DELIM, 2);
 		String name = rhsArr[0];
@@ -602,6 +683,21 @@ public class DroolsAssertSteps<A extends DroolsAssert> extends NullStoryReporter
 		globals = new HashMap<>();
 	}
 	
+	/**
+	 * Starts the story with the definitions made by the steps of the previous scenario: drools session definition, imports and globals.<br>
+	 * Variables are not inherited.
+	 * 
+	 * @see IsolatedStepsFactory
+	 */
+	protected void inheritStory(DroolsAssertSteps<?> storySteps) {
+		beforeStory(storySteps.story, false);
+		droolsSessionMeta = storySteps.droolsSessionMeta;
+		storySteps.imports.forEach(mvelProcessor::importPackage);
+		imports.addAll(storySteps.imports);
+		storySteps.globals.forEach(mvelProcessor::define);
+		globals.putAll(storySteps.globals);
+	}
+	
 	@Override
 	public void beforeScenario(Scenario scenario) {
 		this.scenario = scenario;
@@ -9,8 +9,10 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 
 import org.droolsassert.DroolsSession;
+import org.droolsassert.FactFormatter;
+import org.droolsassert.ReflectiveFactFormatter;
 
-public class DroolsSessionProxy implements InvocationHandler {
+public class DroolsSessionProxy implements InvocationHandler, Cloneable {
 	
 	public static DroolsSession newDroolsSessionProxy(DroolsSessionProxy invocationHandler) {
 		return (DroolsSession) newProxyInstance(DroolsSessionProxy.class.getClassLoader(),
@@ -27,9 +29,14 @@ public class DroolsSessionProxy implements InvocationHandler {
 	String[] builderPropertySource = new String[0];
 	String[] ignoreRules = new String[0];
 	String ignoreRulesSource = EMPTY;
+	String cacheKey = EMPTY;
 	boolean logResources;
+	boolean parallelCompilation;
+	boolean pooledSession;
 	boolean keepFactsHistory = true;
+	boolean indexFacts;
 	boolean logFacts = true;
+	Class<? extends FactFormatter> factFormatter = ReflectiveFactFormatter.class;
 	boolean log = true;
 	boolean showStateTransitionPopup = false;
 	
@@ -55,12 +62,22 @@ public class DroolsSessionProxy implements InvocationHandler {
 			return ignoreRules;
 		case "ignoreRulesSource":
 			return ignoreRulesSource;
+		case "cacheKey":
+			return cacheKey;
+		case "parallelCompilation":
+			return parallelCompilation;
+		case "pooledSession":
+			return pooledSession;
 		case "logResources":
 			return logResources;
 		case "keepFactsHistory":
 			return keepFactsHistory;
+		case "indexFacts":
+			return indexFacts;
 		case "logFacts":
 			return logFacts;
+		case "factFormatter":
+			return factFormatter;
 		case "log":
 			return log;
 		case "showStateTransitionPopup":
@@ -74,6 +91,15 @@ public class DroolsSessionProxy implements InvocationHandler {
 		}
 	}
 	
+	@Override
+	protected DroolsSessionProxy clone() {
+		try {
+			return (DroolsSessionProxy) super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
 	@Override
 	public int hashCode() {
 		return reflectionHashCode(this, false);
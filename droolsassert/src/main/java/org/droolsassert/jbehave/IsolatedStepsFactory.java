@@ -0,0 +1,118 @@
+package org.droolsassert.jbehave;
+
+import static java.util.Collections.singletonList;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.jbehave.core.configuration.Configuration;
+import org.jbehave.core.model.Scenario;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.reporters.DelegatingStoryReporter;
+import org.jbehave.core.reporters.NullStoryReporter;
+import org.jbehave.core.reporters.StoryReporter;
+import org.jbehave.core.reporters.StoryReporterBuilder;
+import org.jbehave.core.steps.AbstractStepsFactory;
+
+/**
+ * Steps factory giving each story (or each scenario) its own {@link DroolsAssertSteps} instance,
+ * so the stories can be run by multi-threaded embedder.<br>
+ * Steps instance is bound to the thread running the story and replaced when the next story (scenario) starts.
+ * In {@link Scope#SCENARIO} scope the new instance inherits only the story definitions from the previous one (drools session definition, imports and globals),
+ * variables and the session are not shared between the scenarios.<br>
+ * Steps are notified about the story and scenario with the reporter builder of the factory, other reporters are called as configured.
+ * 
+ * <pre>
+ * IsolatedStepsFactory stepsFactory = new IsolatedStepsFactory(configuration, DroolsAssertSteps::new, Scope.STORY);
+ * configuration.useStoryReporterBuilder(stepsFactory.storyReporterBuilder()
+ * 		.withDefaultFormats()
+ * 		.withFailureTrace(true));
+ * embedder.embedderControls().useThreads(4);
+ * </pre>
+ */
+public class IsolatedStepsFactory extends AbstractStepsFactory {
+	
+	public enum Scope {
+		STORY, SCENARIO
+	}
+	
+	private final Supplier<? extends DroolsAssertSteps<?>> stepsSupplier;
+	private final Class<?> stepsType;
+	private final Scope scope;
+	private final ThreadLocal<DroolsAssertSteps<?>> steps = new ThreadLocal<>();
+	private final StoryReporter reporter = new IsolatedStepsReporter();
+	
+	public IsolatedStepsFactory(Configuration configuration, Supplier<? extends DroolsAssertSteps<?>> stepsSupplier, Scope scope) {
+		super(configuration);
+		this.stepsSupplier = stepsSupplier;
+		this.stepsType = stepsSupplier.get().getClass();
+		this.scope = scope;
+	}
+	
+	@Override
+	public Object createInstanceOfType(Class<?> type) {
+		return steps();
+	}
+	
+	@Override
+	protected List<Class<?>> stepsTypes() {
+		return singletonList(stepsType);
+	}
+	
+	/**
+	 * Reporter builder calling the steps of the current thread directly,
+	 * reporters built by {@link StoryReporterBuilder} are delayed till the end of the story when run by multiple threads
+	 */
+	public StoryReporterBuilder storyReporterBuilder() {
+		return new StoryReporterBuilder() {
+			@Override
+			public StoryReporter build(String storyPath) {
+				return new DelegatingStoryReporter(reporter, super.build(storyPath));
+			}
+		};
+	}
+	
+	/**
+	 * Steps of the story (scenario) run by the current thread
+	 */
+	public DroolsAssertSteps<?> steps() {
+		DroolsAssertSteps<?> current = steps.get();
+		if (current == null) {
+			current = stepsSupplier.get();
+			steps.set(current);
+		}
+		return current;
+	}
+	
+	private class IsolatedStepsReporter extends NullStoryReporter {
+		
+		@Override
+		public void beforeStory(Story story, boolean givenStory) {
+			if (!givenStory)
+				steps.set(stepsSupplier.get());
+			steps().beforeStory(story, givenStory);
+		}
+		
+		@Override
+		public void beforeScenario(Scenario scenario) {
+			if (scope == Scope.SCENARIO) {
+				DroolsAssertSteps<?> scenarioSteps = stepsSupplier.get();
+				scenarioSteps.inheritStory(steps());
+				steps.set(scenarioSteps);
+			}
+			steps().beforeScenario(scenario);
+		}
+		
+		@Override
+		public void afterScenario() {
+			steps().afterScenario();
+		}
+		
+		@Override
+		public void afterStory(boolean givenStory) {
+			steps().afterStory(givenStory);
+			if (!givenStory)
+				steps.remove();
+		}
+	}
+}
@@ -2,9 +2,19 @@ package org.droolsassert.listeners;
 
 import static java.io.File.pathSeparator;
 import static java.lang.Integer.parseInt;
+import static java.lang.Runtime.getRuntime;
 import static java.lang.String.CASE_INSENSITIVE_ORDER;
+import static java.lang.String.format;
 import static java.lang.System.getProperty;
+import static java.lang.management.ManagementFactory.getRuntimeMXBean;
 import static java.nio.charset.Charset.defaultCharset;
+import static java.nio.file.Files.move;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Collections.newSetFromMap;
 import static java.util.stream.Collectors.toSet;
 import static org.apache.commons.io.FileUtils.forceMkdirParent;
 import static org.apache.commons.io.IOUtils.readLines;
@@ -18,16 +28,27 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 
 import org.droolsassert.DroolsAssertException;
+import org.kie.api.KieBase;
 import org.kie.api.definition.rule.Query;
 import org.kie.api.runtime.KieSession;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * Creates activation report (known rules in a session vs activated rules)<br>
  * First line of the report is percent of activated rules<br>
@@ -58,15 +79,26 @@ import org.kie.api.runtime.KieSession;
  * <pre>
  * ${directory_path}/activationReport.txt
  * </pre>
+ * 
+ * Activations of each finished test are appended to the shard of the JVM (e.g. surefire fork) next to the consolidated report,
+ * shard is locked by its JVM while it runs. On JVM shutdown the shard and the shards of terminated JVMs (not locked) are merged
+ * into the consolidated report holding the lock on {@code ${file_path}.lock}, so concurrent forks do not overwrite each other.
+ * Shards left by a crashed JVM are merged by the next one.
  */
 public class ActivationReportBuilder implements DroolsassertListener {
 	
-	private static String systemProperty = getProperty("droolsassert.activationReport");
+	private static final String SHARD_SUFFIX = ".shard";
+	private static final String systemProperty = getProperty("droolsassert.activationReport");
+	private static final Cache<KieBase, Set<String>> knownRules = CacheBuilder.newBuilder().weakKeys().build();
+	private static final AtomicReference<File> consolidatedReport = new AtomicReference<>();
+	private static final Set<KieBase> knownRulesInShard = newSetFromMap(CacheBuilder.newBuilder().weakKeys().<KieBase, Boolean> build().asMap());
+	private static final Object shardLock = new Object();
+	private static File shard;
+	private static FileChannel shardChannel;
 	
 	private KieSession session;
 	private Map<String, Integer> activations;
 	private File reportsDirectory;
-	private File consolidatedReport;
 	private String reportName;
 	
 	public ActivationReportBuilder(KieSession session, Map<String, Integer> activations) {
@@ -93,26 +125,15 @@ public class ActivationReportBuilder implements DroolsassertListener {
 	@Override
 	public void afterScenario() {
 		buildReport();
-		buildConsolidatedReport();
+		appendShard();
 	}
 	
 	private void initialize() {
-		if ("true".equals(systemProperty))
-			systemProperty = EMPTY;
-		String[] params = systemProperty.split(pathSeparator);
+		String[] params = ("true".equals(systemProperty) ? EMPTY : systemProperty).split(pathSeparator);
 		reportsDirectory = directory(new File(defaultIfEmpty(params[0], "target/droolsassert/activationReport")));
-		consolidatedReport = new File(params.length > 1 ? params[1] : reportsDirectory + ".txt");
 		
-		synchronized (ActivationReportBuilder.class) {
-			try {
-				if (!consolidatedReport.exists()) {
-					forceMkdirParent(consolidatedReport);
-					consolidatedReport.createNewFile();
-				}
-			} catch (IOException e) {
-				throw new DroolsAssertException("Cannot initialize reports file system", e);
-			}
-		}
+		if (consolidatedReport.get() == null && consolidatedReport.compareAndSet(null, new File(params.length > 1 ? params[1] : reportsDirectory + ".txt")))
+			getRuntime().addShutdownHook(new Thread(() -> buildConsolidatedReport(consolidatedReport.get())));
 	}
 	
 	private void buildReport() {
@@ -127,38 +148,123 @@ public class ActivationReportBuilder implements DroolsassertListener {
 		writeReport(reportFile, reportData);
 	}
 	
-	private void buildConsolidatedReport() {
-		if (consolidatedReport == null)
+	/**
+	 * Known rules are appended with zero count once per knowledge base, then activated rules only
+	 */
+	private void appendShard() {
+		if (reportsDirectory == null)
 			return;
 		
-		TreeMap<String, Integer> consolidatedReportData = new TreeMap<>(CASE_INSENSITIVE_ORDER);
-		knownRules().forEach(rule -> consolidatedReportData.put(rule, 0));
+		StringBuilder sb = new StringBuilder();
+		if (knownRulesInShard.add(session.getKieBase()))
+			knownRules().forEach(rule -> sb.append(format("%-7d \t%s%n", 0, rule)));
+		activations.forEach((rule, count) -> {
+			if (count > 0)
+				sb.append(format("%-7d \t%s%n", count, rule));
+		});
+		if (sb.length() == 0)
+			return;
 		
-		synchronized (ActivationReportBuilder.class) {
-			try (InputStream is = new FileInputStream(consolidatedReport)) {
-				readLines(is, defaultCharset()).stream()
-						.skip(1)
-						.forEach(line -> {
-							Matcher m = COUNT_OF_RULES.matcher(line);
-							if (!m.matches())
-								throw new IllegalStateException("Report broken, please delete manually " + consolidatedReport);
-							consolidatedReportData.put(m.group("rule"), parseInt(m.group("count")));
-						});
+		synchronized (shardLock) {
+			try {
+				if (shardChannel == null)
+					openShard(consolidatedReport.get());
+				ByteBuffer bytes = ByteBuffer.wrap(sb.toString().getBytes(defaultCharset()));
+				shardChannel.position(shardChannel.size());
+				while (bytes.hasRemaining())
+					shardChannel.write(bytes);
 			} catch (IOException e) {
-				throw new DroolsAssertException("Cannot read consolidated report", e);
+				throw new DroolsAssertException("Cannot append activations to the shard of " + consolidatedReport.get(), e);
 			}
-			
-			activations.entrySet().forEach(e -> {
-				consolidatedReportData.put(e.getKey(), consolidatedReportData.containsKey(e.getKey())
-						? e.getValue() + consolidatedReportData.get(e.getKey())
-						: e.getValue());
-			});
-			
-			writeReport(consolidatedReport, consolidatedReportData);
 		}
 	}
 	
-	private void writeReport(File report, Map<String, Integer> activations) {
+	/**
+	 * Shard of this JVM is locked until the JVM terminates
+	 */
+	private static void openShard(File consolidatedReport) throws IOException {
+		shard = new File(consolidatedReport.getAbsoluteFile().getParentFile(),
+				consolidatedReport.getName() + "." + getRuntimeMXBean().getName().replaceAll("[^\\w.-]", "_") + SHARD_SUFFIX);
+		forceMkdirParent(shard);
+		shardChannel = FileChannel.open(shard.toPath(), CREATE, READ, WRITE, TRUNCATE_EXISTING);
+		shardChannel.lock();
+	}
+	
+	/**
+	 * Merges the shard of this JVM and the shards not locked by running JVMs into the consolidated report
+	 */
+	static void buildConsolidatedReport(File consolidatedReport) {
+		File directory = consolidatedReport.getAbsoluteFile().getParentFile();
+		String shardPrefix = consolidatedReport.getName() + ".";
+		
+		synchronized (shardLock) {
+			try (FileChannel lockChannel = FileChannel.open(new File(consolidatedReport.getPath() + ".lock").toPath(), CREATE, WRITE);
+					FileLock lock = lockChannel.lock()) {
+				TreeMap<String, Integer> consolidatedReportData = new TreeMap<>(CASE_INSENSITIVE_ORDER);
+				if (consolidatedReport.exists())
+					readReport(consolidatedReport, consolidatedReportData);
+				
+				List<File> merged = new ArrayList<>();
+				if (shardChannel != null)
+					readShard(shardChannel, consolidatedReportData);
+				File[] shards = directory.listFiles((dir, name) -> name.startsWith(shardPrefix) && name.endsWith(SHARD_SUFFIX));
+				for (File shard : shards == null ? new File[0] : shards) {
+					try (FileChannel channel = FileChannel.open(shard.toPath(), READ, WRITE)) {
+						if (channel.tryLock() == null)
+							continue;
+						readShard(channel, consolidatedReportData);
+						merged.add(shard);
+					} catch (OverlappingFileLockException e) {
+						// locked by this JVM
+					}
+				}
+				if (consolidatedReportData.isEmpty())
+					return;
+				
+				File report = new File(consolidatedReport.getPath() + ".tmp");
+				writeReport(report, consolidatedReportData);
+				move(report.toPath(), consolidatedReport.toPath(), REPLACE_EXISTING);
+				merged.forEach(File::delete);
+				if (shardChannel != null) {
+					shardChannel.close();
+					shardChannel = null;
+					shard.delete();
+				}
+			} catch (IOException | RuntimeException e) {
+				new DroolsAssertException("Cannot write consolidated report", e).printStackTrace();
+			}
+		}
+	}
+	
+	private static void readReport(File report, Map<String, Integer> reportData) throws IOException {
+		try (InputStream is = new FileInputStream(report)) {
+			readLines(is, defaultCharset()).stream()
+					.skip(1)
+					.forEach(line -> {
+						Matcher m = COUNT_OF_RULES.matcher(line);
+						if (!m.matches())
+							throw new IllegalStateException("Report broken, please delete manually " + report);
+						reportData.merge(m.group("rule"), parseInt(m.group("count")), Integer::sum);
+					});
+		}
+	}
+	
+	/**
+	 * Broken line (JVM crashed while appending) is skipped
+	 */
+	private static void readShard(FileChannel channel, Map<String, Integer> reportData) throws IOException {
+		ByteBuffer bytes = ByteBuffer.allocate((int) channel.size());
+		channel.position(0);
+		while (bytes.hasRemaining() && channel.read(bytes) >= 0)
+			;
+		for (String line : new String(bytes.array(), 0, bytes.position(), defaultCharset()).split("\\R")) {
+			Matcher m = COUNT_OF_RULES.matcher(line);
+			if (m.matches())
+				reportData.merge(m.group("rule"), parseInt(m.group("count")), Integer::sum);
+		}
+	}
+	
+	private static void writeReport(File report, Map<String, Integer> activations) {
 		Set<String> triggeredRules = triggeredRules(activations);
 		try (PrintWriter pw = new PrintWriter(report)) {
 			pw.printf("%.2f%n", 100.0 * triggeredRules.size() / activations.size());
@@ -169,15 +275,24 @@ public class ActivationReportBuilder implements DroolsassertListener {
 		}
 	}
 	
+	/**
+	 * Known rules are collected once per knowledge base
+	 */
 	private Set<String> knownRules() {
-		return session.getKieBase().getKiePackages().stream()
-				.flatMap(p -> p.getRules().stream())
-				.filter(r -> !Query.class.isInstance(r))
-				.map(rule -> rule.getName())
-				.collect(toSet());
+		KieBase kieBase = session.getKieBase();
+		Set<String> rules = knownRules.getIfPresent(kieBase);
+		if (rules == null) {
+			rules = kieBase.getKiePackages().stream()
+					.flatMap(p -> p.getRules().stream())
+					.filter(r -> !Query.class.isInstance(r))
+					.map(rule -> rule.getName())
+					.collect(toSet());
+			knownRules.put(kieBase, rules);
+		}
+		return rules;
 	}
 	
-	private Set<String> triggeredRules(Map<String, Integer> activations) {
+	private static Set<String> triggeredRules(Map<String, Integer> activations) {
 		return activations.entrySet().stream()
 				.filter(e -> e.getValue() > 0)
 				.map(e -> e.getKey())
@@ -0,0 +1,274 @@
+package org.droolsassert.listeners;
+
+import static java.io.File.pathSeparator;
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.Integer.parseInt;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.getProperty;
+import static java.lang.System.nanoTime;
+import static java.nio.ByteBuffer.allocate;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+import static org.apache.commons.lang3.StringUtils.defaultIfEmpty;
+import static org.apache.commons.lang3.StringUtils.trimToEmpty;
+import static org.droolsassert.DroolsAssertUtils.directory;
+import static org.droolsassert.DroolsAssertUtils.getRuleActivatedBy;
+import static org.droolsassert.util.JsonUtils.toJson;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.drools.core.common.InternalFactHandle;
+import org.droolsassert.DroolsAssertException;
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.event.rule.BeforeMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.api.event.rule.ObjectDeletedEvent;
+import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.event.rule.ObjectUpdatedEvent;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+import org.kie.api.time.SessionPseudoClock;
+
+/**
+ * Writes compact binary journal of the session activity per scenario: facts inserted, updated, deleted and rules fired
+ * along with pseudo clock time and {@link System#nanoTime()}.<br>
+ * Records are appended to a heap {@link ByteBuffer} and written to the file channel only when the buffer is full and after the scenario,
+ * so the session pays only for the append. The buffer starts small and grows on demand up to the configured size. Class, entry point and rule names are written once and referenced by id afterwards.<br>
+ * Journal can be read offline with {@link EventJournalReader}.
+ * <p>
+ * Define system property to enable the journal
+ *
+ * <pre>
+ * -Ddroolsassert.eventJournal[=&lt;directory_path&gt;]
+ * -Ddroolsassert.eventJournalFacts=true
+ * -Ddroolsassert.eventJournalBuffer=1048576
+ * </pre>
+ *
+ * <b>directory_path</b> - directory for journals per test, default
+ *
+ * <pre>
+ * target/droolsassert/eventJournal
+ * </pre>
+ *
+ * <b>eventJournalFacts</b> - write facts state (json) on insert and update, required for replay, disable for smaller journal which is only read back<br>
+ * <b>eventJournalBuffer</b> - maximum buffer size in bytes before it is written to the file
+ */
+public class EventJournal extends DefaultAgendaEventListener implements DroolsassertListener, RuleRuntimeEventListener {
+	
+	static final int MAGIC = 0x44414A31;
+	static final byte DEFINE = 0;
+	static final byte INSERTED = 1;
+	static final byte UPDATED = 2;
+	static final byte DELETED = 3;
+	static final byte FIRED = 4;
+	static final int NONE = -1;
+	
+	private static final String systemProperty = getProperty("droolsassert.eventJournal");
+	private static final boolean JOURNAL_FACTS = parseBoolean(getProperty("droolsassert.eventJournalFacts", "true"));
+	private static final int BUFFER_SIZE = parseInt(getProperty("droolsassert.eventJournalBuffer", "1048576"));
+	private static final int INITIAL_BUFFER_SIZE = 4096;
+	
+	private SessionPseudoClock clock;
+	private File journalsDirectory;
+	private boolean journalFacts = JOURNAL_FACTS;
+	private File journal;
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	
+	private Map<Object, Integer> names;
+	private Map<Object, Integer> factIds;
+	private int factSequence;
+	
+	public EventJournal(SessionPseudoClock clock) {
+		this.clock = clock;
+	}
+	
+	/**
+	 * Journal enabled regardless of the system property
+	 */
+	public EventJournal(SessionPseudoClock clock, File journalsDirectory, boolean journalFacts) {
+		this.clock = clock;
+		this.journalsDirectory = directory(journalsDirectory);
+		this.journalFacts = journalFacts;
+	}
+	
+	@Override
+	public boolean enabled() {
+		if (systemProperty == null && journalsDirectory == null)
+			return false;
+		if (journalsDirectory == null)
+			initialize();
+		return true;
+	}
+	
+	private void initialize() {
+		String[] params = trimToEmpty("true".equals(systemProperty) ? EMPTY : systemProperty).split(pathSeparator);
+		journalsDirectory = directory(new File(defaultIfEmpty(params[0], "target/droolsassert/eventJournal")));
+	}
+	
+	@Override
+	public void beforeScenario(String test, String scenario) {
+		journal = new File(journalsDirectory, (test + "#" + scenario).replace('/', '.') + ".journal");
+		try {
+			channel = FileChannel.open(journal.toPath(), CREATE, WRITE, TRUNCATE_EXISTING);
+		} catch (IOException e) {
+			throw new DroolsAssertException("Cannot open journal " + journal, e);
+		}
+		if (buffer == null)
+			buffer = allocate(min(INITIAL_BUFFER_SIZE, BUFFER_SIZE));
+		buffer.clear();
+		names = new HashMap<>();
+		factIds = new IdentityHashMap<>();
+		factSequence = 0;
+		
+		buffer.putInt(MAGIC);
+		putString(test);
+		putString(scenario);
+	}
+	
+	@Override
+	public void afterScenario() {
+		try {
+			flush();
+			channel.close();
+		} catch (IOException e) {
+			throw new DroolsAssertException("Cannot write journal " + journal, e);
+		} finally {
+			channel = null;
+			names = null;
+			factIds = null;
+		}
+	}
+	
+	@Override
+	public void objectInserted(ObjectInsertedEvent event) {
+		Object fact = event.getObject();
+		Integer factId = factIds.get(fact);
+		if (factId == null) {
+			factId = factSequence++;
+			factIds.put(fact, factId);
+		}
+		append(INSERTED, factId, fact, (InternalFactHandle) event.getFactHandle(), event.getRule(), journalFacts);
+	}
+	
+	@Override
+	public void objectUpdated(ObjectUpdatedEvent event) {
+		Object fact = event.getObject();
+		if (fact != event.getOldObject())
+			factIds.put(fact, factIds.remove(event.getOldObject()));
+		append(UPDATED, factId(fact), fact, (InternalFactHandle) event.getFactHandle(), event.getRule(), journalFacts);
+	}
+	
+	@Override
+	public void objectDeleted(ObjectDeletedEvent event) {
+		Object fact = event.getOldObject();
+		append(DELETED, factId(fact), fact, (InternalFactHandle) event.getFactHandle(), event.getRule(), false);
+		factIds.remove(fact);
+	}
+	
+	@Override
+	public void beforeMatchFired(BeforeMatchFiredEvent event) {
+		int rule = nameId(event.getMatch().getRule().getName());
+		List<Object> tuple = getRuleActivatedBy(event.getMatch());
+		ensure(1 + 8 + 8 + 4 + 4 + 4 * tuple.size());
+		putHeader(FIRED);
+		buffer.putInt(rule);
+		buffer.putInt(tuple.size());
+		for (Object fact : tuple)
+			buffer.putInt(factId(fact));
+	}
+	
+	private void append(byte type, int factId, Object fact, InternalFactHandle factHandle, Rule rule, boolean withState) {
+		int factClass = nameId(fact.getClass());
+		int entryPoint = factHandle.getEntryPointId() == null ? NONE : nameId(factHandle.getEntryPointId().getEntryPointId());
+		int ruleName = rule == null ? NONE : nameId(rule.getName());
+		byte[] state = withState ? toJson(fact).getBytes(UTF_8) : null;
+		
+		ensure(1 + 8 + 8 + 4 * 5 + (state == null ? 0 : state.length));
+		putHeader(type);
+		buffer.putInt(factId);
+		buffer.putInt(factClass);
+		buffer.putInt(entryPoint);
+		buffer.putInt(ruleName);
+		if (state == null) {
+			buffer.putInt(NONE);
+		} else {
+			buffer.putInt(state.length);
+			buffer.put(state);
+		}
+	}
+	
+	private int factId(Object fact) {
+		Integer factId = factIds.get(fact);
+		return factId == null ? NONE : factId;
+	}
+	
+	/**
+	 * Name (class, entry point, rule) is defined in the journal on first use
+	 */
+	private int nameId(Object key) {
+		Integer id = names.get(key);
+		if (id == null) {
+			id = names.size();
+			names.put(key, id);
+			byte[] name = (key instanceof Class ? ((Class<?>) key).getName() : key.toString()).getBytes(UTF_8);
+			ensure(1 + 4 + 4 + name.length);
+			buffer.put(DEFINE);
+			buffer.putInt(id);
+			buffer.putInt(name.length);
+			buffer.put(name);
+		}
+		return id;
+	}
+	
+	private void putHeader(byte type) {
+		buffer.put(type);
+		buffer.putLong(nanoTime());
+		buffer.putLong(clock.getCurrentTime());
+	}
+	
+	private void putString(String value) {
+		byte[] bytes = value.getBytes(UTF_8);
+		ensure(4 + bytes.length);
+		buffer.putInt(bytes.length);
+		buffer.put(bytes);
+	}
+	
+	/**
+	 * Buffer is doubled until it reaches configured size, then it is written to the file when full
+	 */
+	private void ensure(int bytes) {
+		if (buffer.remaining() >= bytes)
+			return;
+		if (buffer.capacity() >= BUFFER_SIZE) {
+			try {
+				flush();
+			} catch (IOException e) {
+				throw new DroolsAssertException("Cannot write journal " + journal, e);
+			}
+			if (buffer.remaining() >= bytes)
+				return;
+		}
+		ByteBuffer grown = allocate(max(buffer.position() + bytes, min(2 * buffer.capacity(), BUFFER_SIZE)));
+		buffer.flip();
+		grown.put(buffer);
+		buffer = grown;
+	}
+	
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+}
@@ -0,0 +1,305 @@
+package org.droolsassert.listeners;
+
+import static java.lang.Math.max;
+import static java.lang.String.format;
+import static java.nio.ByteBuffer.allocateDirect;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static org.droolsassert.DroolsAssertUtils.formatTime;
+import static org.droolsassert.listeners.EventJournal.DEFINE;
+import static org.droolsassert.listeners.EventJournal.DELETED;
+import static org.droolsassert.listeners.EventJournal.FIRED;
+import static org.droolsassert.listeners.EventJournal.INSERTED;
+import static org.droolsassert.listeners.EventJournal.MAGIC;
+import static org.droolsassert.listeners.EventJournal.NONE;
+import static org.droolsassert.listeners.EventJournal.UPDATED;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+import org.droolsassert.DroolsAssertException;
+
+/**
+ * Streams records of the journal written by {@link EventJournal}, only a small buffer of the file is held in memory.<br>
+ * Run from command line to print the journal in the format of {@link LoggingListener}
+ *
+ * <pre>
+ * java org.droolsassert.listeners.EventJournalReader &lt;journal_file&gt;...
+ * </pre>
+ */
+public class EventJournalReader implements Iterator<EventJournalReader.JournalEvent>, Closeable {
+	
+	public enum EventType {
+		INSERTED, UPDATED, DELETED, FIRED
+	}
+	
+	public static class JournalEvent {
+		private final EventType type;
+		private final long nanoTime;
+		private final long time;
+		private final int factId;
+		private final String factClass;
+		private final String entryPoint;
+		private final String rule;
+		private final String fact;
+		private final List<String> tuple;
+		
+		private JournalEvent(EventType type, long nanoTime, long time, int factId, String factClass, String entryPoint, String rule, String fact, List<String> tuple) {
+			this.type = type;
+			this.nanoTime = nanoTime;
+			this.time = time;
+			this.factId = factId;
+			this.factClass = factClass;
+			this.entryPoint = entryPoint;
+			this.rule = rule;
+			this.fact = fact;
+			this.tuple = tuple;
+		}
+		
+		public EventType getType() {
+			return type;
+		}
+		
+		/**
+		 * {@link System#nanoTime()} of the event
+		 */
+		public long getNanoTime() {
+			return nanoTime;
+		}
+		
+		/**
+		 * Session clock time of the event
+		 */
+		public long getTime() {
+			return time;
+		}
+		
+		/**
+		 * Id of the fact unique within the journal, -1 for fired rule
+		 */
+		public int getFactId() {
+			return factId;
+		}
+		
+		public String getFactClass() {
+			return factClass;
+		}
+		
+		public String getEntryPoint() {
+			return entryPoint;
+		}
+		
+		/**
+		 * Fired rule or the rule which caused the fact change, null if the fact was changed outside the session
+		 */
+		public String getRule() {
+			return rule;
+		}
+		
+		/**
+		 * Fact state (json) if journaled, see {@link EventJournal}
+		 */
+		public String getFact() {
+			return fact;
+		}
+		
+		/**
+		 * Facts activated the fired rule, {@code SimpleClassName#factId}
+		 */
+		public List<String> getTuple() {
+			return tuple;
+		}
+		
+		@Override
+		public String toString() {
+			switch (type) {
+			case FIRED:
+				return format("<-- '%s' activated by %s", rule, tuple);
+			case DELETED:
+				return format("--> retracted #%s: %s", factId, simpleName(factClass));
+			default:
+				return format("--> %s #%s: %s", type == EventType.INSERTED ? "inserted" : "updated", factId, fact == null ? simpleName(factClass) : fact);
+			}
+		}
+	}
+	
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	private final File file;
+	private final FileChannel channel;
+	private ByteBuffer buffer = allocateDirect(BUFFER_SIZE);
+	private final Map<Integer, String> names = new HashMap<>();
+	private final Map<Integer, String> factClasses = new HashMap<>();
+	private final String test;
+	private final String scenario;
+	private JournalEvent next;
+	
+	public EventJournalReader(File file) {
+		this.file = file;
+		try {
+			channel = FileChannel.open(file.toPath(), READ);
+			buffer.flip();
+			if (!require(4) || buffer.getInt() != MAGIC)
+				throw new DroolsAssertException("Not a journal " + file);
+			test = readString();
+			scenario = readString();
+		} catch (IOException e) {
+			throw new DroolsAssertException("Cannot read journal " + file, e);
+		}
+	}
+	
+	public String getTest() {
+		return test;
+	}
+	
+	public String getScenario() {
+		return scenario;
+	}
+	
+	@Override
+	public boolean hasNext() {
+		if (next == null)
+			next = readEvent();
+		return next != null;
+	}
+	
+	@Override
+	public JournalEvent next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		JournalEvent event = next;
+		next = null;
+		return event;
+	}
+	
+	@Override
+	public void close() {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			throw new DroolsAssertException("Cannot close journal " + file, e);
+		}
+	}
+	
+	private JournalEvent readEvent() {
+		try {
+			while (require(1)) {
+				byte type = buffer.get();
+				if (type == DEFINE) {
+					int id = readInt();
+					names.put(id, readString());
+					continue;
+				}
+				long nanoTime = readLong();
+				long time = readLong();
+				if (type == FIRED) {
+					String rule = names.get(readInt());
+					int size = readInt();
+					List<String> tuple = new ArrayList<>(size);
+					for (int i = 0; i < size; i++) {
+						int factId = readInt();
+						tuple.add(format("%s#%s", simpleName(factClasses.get(factId)), factId));
+					}
+					return new JournalEvent(EventType.FIRED, nanoTime, time, NONE, null, null, rule, null, tuple);
+				}
+				int factId = readInt();
+				String factClass = names.get(readInt());
+				String entryPoint = names.get(readInt());
+				String rule = names.get(readInt());
+				int length = readInt();
+				String fact = length == NONE ? null : readString(length);
+				if (type == DELETED) {
+					factClasses.remove(factId);
+				} else {
+					factClasses.put(factId, factClass);
+				}
+				EventType eventType = type == INSERTED ? EventType.INSERTED : type == UPDATED ? EventType.UPDATED : EventType.DELETED;
+				return new JournalEvent(eventType, nanoTime, time, factId, factClass, entryPoint, rule, fact, null);
+			}
+			return null;
+		} catch (IOException e) {
+			throw new DroolsAssertException("Cannot read journal " + file, e);
+		}
+	}
+	
+	private int readInt() throws IOException {
+		requireFully(4);
+		return buffer.getInt();
+	}
+	
+	private long readLong() throws IOException {
+		requireFully(8);
+		return buffer.getLong();
+	}
+	
+	private String readString() throws IOException {
+		return readString(readInt());
+	}
+	
+	private String readString(int length) throws IOException {
+		requireFully(length);
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, UTF_8);
+	}
+	
+	private void requireFully(int bytes) throws IOException {
+		if (!require(bytes))
+			throw new EOFException("Journal is truncated " + file);
+	}
+	
+	/**
+	 * @return false if the end of the journal is reached
+	 */
+	private boolean require(int bytes) throws IOException {
+		if (buffer.remaining() >= bytes)
+			return true;
+		if (buffer.capacity() < bytes) {
+			ByteBuffer larger = allocateDirect(max(bytes, 2 * buffer.capacity()));
+			larger.put(buffer);
+			buffer = larger;
+		} else {
+			buffer.compact();
+		}
+		while (buffer.position() < bytes) {
+			if (channel.read(buffer) < 0)
+				break;
+		}
+		buffer.flip();
+		return buffer.remaining() >= bytes;
+	}
+	
+	private static String simpleName(String className) {
+		return className == null ? null : className.substring(className.lastIndexOf('.') + 1).replace('$', '.');
+	}
+	
+	/**
+	 * Prints journal in the format of {@link LoggingListener} followed by the rules activation count
+	 */
+	public static void main(String[] args) {
+		for (String arg : args) {
+			Map<String, Integer> activations = new TreeMap<>();
+			try (EventJournalReader reader = new EventJournalReader(new File(arg))) {
+				System.out.println(formatTime(0) + " " + reader.getTest() + "#" + reader.getScenario());
+				while (reader.hasNext()) {
+					JournalEvent event = reader.next();
+					if (event.getType() == EventType.FIRED)
+						activations.merge(event.getRule(), 1, Integer::sum);
+					System.out.println(formatTime(event.getTime()) + " " + event);
+				}
+			}
+			activations.forEach((rule, count) -> System.out.println(format("%-8s\t%s", count, rule)));
+		}
+	}
+}
@@ -1,15 +1,21 @@
 package org.droolsassert.listeners;
 
+import static com.google.common.util.concurrent.Futures.getUnchecked;
 import static java.awt.Color.darkGray;
 import static java.awt.Color.white;
 import static java.awt.Toolkit.getDefaultToolkit;
 import static java.awt.event.KeyEvent.VK_ESCAPE;
 import static java.io.File.pathSeparator;
+import static java.lang.Integer.parseInt;
 import static java.lang.String.format;
 import static java.lang.System.getProperty;
 import static java.lang.System.identityHashCode;
+import static java.lang.Runtime.getRuntime;
 import static java.lang.Thread.currentThread;
 import static java.nio.charset.Charset.defaultCharset;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static javax.swing.JComponent.WHEN_IN_FOCUSED_WINDOW;
 import static javax.swing.KeyStroke.getKeyStroke;
 import static javax.swing.SwingUtilities.invokeLater;
@@ -40,10 +46,15 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.imageio.ImageIO;
@@ -55,6 +66,9 @@ import org.drools.core.common.InternalFactHandle;
 import org.drools.core.definitions.rule.impl.RuleImpl;
 import org.droolsassert.DroolsAssertException;
 import org.droolsassert.DroolsSession;
+import org.droolsassert.listeners.TransitionGraph.Edge;
+import org.droolsassert.listeners.TransitionGraph.Node;
+import org.droolsassert.listeners.TransitionGraph.NodeType;
 import org.jgraph.JGraph;
 import org.jgraph.graph.DefaultCellViewFactory;
 import org.jgraph.graph.DefaultEdge;
@@ -72,6 +86,7 @@ import org.kie.api.event.rule.ObjectUpdatedEvent;
 import org.kie.api.event.rule.RuleRuntimeEventListener;
 import org.kie.api.time.SessionPseudoClock;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.jgraph.layout.JGraphFacade;
 import com.jgraph.layout.hierarchical.JGraphHierarchicalLayout;
 
@@ -81,47 +96,40 @@ import com.jgraph.layout.hierarchical.JGraphHierarchicalLayout;
  * Define system property to enable the report
  * 
  * <pre>
- * -Ddroolsassert.stateTransitionReport[=&lt;image_format&gt;[&lt;path_separator&gt;&lt;directory_path&gt;]]
+ * -Ddroolsassert.stateTransitionReport[=&lt;format&gt;[,&lt;format&gt;...][&lt;path_separator&gt;&lt;directory_path&gt;]]
+ * -Ddroolsassert.stateTransitionReportThreads=&lt;available_processors&gt;
  * </pre>
  * 
- * <b>image_format</b> - graph output image format, default png<br>
+ * <b>format</b> - graph output format, default png<br>
  * <b>directory_path</b> - directory for reports per test, default
  * 
  * <pre>
  * target/droolsassert/stateTransitionReport
  * </pre>
+ * 
+ * While rules are fired only compact transition records and fact state dumps are collected, nothing is rendered or written.<br>
+ * The report is rendered after the scenario on a worker pool, so the tests do not wait for it and do not contend on a global lock.<br>
+ * <b>dot</b> and <b>svg</b> formats are rendered headless without AWT, other formats are image formats rendered with JGraph on a single dedicated thread,
+ * since JGraph and Swing are not thread safe.<br>
+ * Pending reports are completed on JVM shutdown.
  */
 public class StateTransitionBuilder extends DefaultAgendaEventListener implements DroolsassertListener, RuleRuntimeEventListener {
 	
-	private enum CellType {
-		UpdatedFact("#c8edc2", "#42b52f"),
-		DeletedFact("#ebebeb", "#9e9e9e"),
-		Rule("#c7e7ff", "#4eb3fc");
-		
-		private String background;
-		private String borderColor;
-		
-		private CellType(String background, String borderColor) {
-			this.background = background;
-			this.borderColor = borderColor;
-		}
-	}
-	
-	private static String systemProperty = getProperty("droolsassert.stateTransitionReport");
+	private static final String systemProperty = getProperty("droolsassert.stateTransitionReport");
 	
 	private DroolsSession droolsSessionMeta;
 	private SessionPseudoClock clock;
 	private File reportsDirectory;
-	private String format;
+	private String[] formats;
 	private String test;
 	private String scenario;
-	private JGraph graph;
 	private volatile Thread eventDispatchThread;
 	
+	private TransitionGraph transitions;
+	private List<String[]> stateDumps;
+	private Map<Object, Node> lastObjectNode;
 	private Map<Integer, AtomicInteger> lastObjectState;
-	private Map<Integer, DefaultGraphCell> lastObjectCell;
 	private Map<Integer, AtomicInteger> lastRuleTriggerCount;
-	private AtomicInteger adgeCounter;
 	
 	public StateTransitionBuilder(DroolsSession droolsSessionMeta, SessionPseudoClock clock) {
 		this.droolsSessionMeta = droolsSessionMeta;
@@ -141,35 +149,69 @@ public class StateTransitionBuilder extends DefaultAgendaEventListener implement
 	public void beforeScenario(String test, String scenario) {
 		this.test = test;
 		this.scenario = scenario;
-		directory(new File(reportsDirectory, getReportName()));
 		
+		transitions = new TransitionGraph();
+		stateDumps = new ArrayList<>();
+		lastObjectNode = new IdentityHashMap<>();
 		lastObjectState = new HashMap<>();
-		lastObjectCell = new HashMap<>();
 		lastRuleTriggerCount = new HashMap<>();
-		adgeCounter = new AtomicInteger();
-		graph = newGraph();
 	}
 	
 	@Override
 	public void afterScenario() {
-		// JGraph instances require class synchronization otherwise NPEs appear deep in AWT stuff
-		synchronized (StateTransitionBuilder.class) {
-			layout(graph);
-			writeToFile(graph);
-			if (droolsSessionMeta.showStateTransitionPopup())
-				showDialog(graph);
+		String reportName = getReportName();
+		TransitionGraph transitions = this.transitions;
+		List<String[]> stateDumps = this.stateDumps;
+		this.transitions = null;
+		this.stateDumps = null;
+		this.lastObjectNode = null;
+		
+		if (droolsSessionMeta.showStateTransitionPopup()) {
+			// interactive mode, wait for the dialog to be closed
+			getUnchecked(Renderers.imageRenderer.submit(() -> {
+				writeReport(reportName, transitions, stateDumps, true);
+				showDialog(layout(newGraph(transitions)));
+			}));
+		} else {
+			Renderers.reports.execute(() -> {
+				try {
+					writeReport(reportName, transitions, stateDumps, false);
+				} catch (RuntimeException e) {
+					new DroolsAssertException("Cannot write state transition report " + reportName, e).printStackTrace();
+				}
+			});
 		}
 	}
 	
 	private void initialize() {
-		if ("true".equals(systemProperty))
-			systemProperty = EMPTY;
-		String[] params = trimToEmpty(systemProperty).split(pathSeparator);
-		format = defaultIfEmpty(params[0], "png");
+		String[] params = trimToEmpty("true".equals(systemProperty) ? EMPTY : systemProperty).split(pathSeparator);
+		formats = defaultIfEmpty(params[0], "png").split(",");
 		reportsDirectory = directory(new File(params.length > 1 ? params[1] : "target/droolsassert/stateTransitionReport"));
 	}
 	
-	private void writeToFile(JGraph graph) {
+	private void writeReport(String reportName, TransitionGraph transitions, List<String[]> stateDumps, boolean onImageRenderer) {
+		File reportDirectory = directory(new File(reportsDirectory, reportName));
+		try {
+			for (String[] stateDump : stateDumps)
+				writeStringToFile(new File(reportDirectory, stateDump[0]), stateDump[1], defaultCharset());
+			
+			for (String format : formats) {
+				File file = new File(reportDirectory, "graph." + format);
+				if ("dot".equals(format))
+					writeStringToFile(file, transitions.toDot(reportName), defaultCharset());
+				else if ("svg".equals(format))
+					writeStringToFile(file, transitions.toSvg(), defaultCharset());
+				else if (onImageRenderer)
+					writeImage(layout(newGraph(transitions)), format, file);
+				else
+					getUnchecked(Renderers.imageRenderer.submit(() -> writeImage(layout(newGraph(transitions)), format, file)));
+			}
+		} catch (IOException e) {
+			throw new DroolsAssertException("Cannot write to file", e);
+		}
+	}
+	
+	private void writeImage(JGraph graph, String format, File file) {
 		try {
 			JPanel panel = new JPanel();
 			panel.setDoubleBuffered(false);
@@ -180,10 +222,9 @@ public class StateTransitionBuilder extends DefaultAgendaEventListener implement
 			panel.validate();
 			
 			BufferedImage image = graph.getImage(white, 5);
-			File f = new File(reportsDirectory, getReportName() + "/graph." + format);
-			if (image != null && !ImageIO.write(image, format, f))
+			if (image != null && !ImageIO.write(image, format, file))
 				throw new DroolsAssertException("No encoder for " + format);
-			
+		
 		} catch (IOException e) {
 			throw new DroolsAssertException("Cannot write to file", e);
 		}
@@ -206,9 +247,7 @@ public class StateTransitionBuilder extends DefaultAgendaEventListener implement
 	public void beforeMatchFired(BeforeMatchFiredEvent event) {
 		RuleImpl rule = (RuleImpl) event.getMatch().getRule();
 		int ruleId = identityHashCode(rule);
-		if (!lastRuleTriggerCount.containsKey(ruleId))
-			lastRuleTriggerCount.putIfAbsent(ruleId, new AtomicInteger());
-		int triggerCount = lastRuleTriggerCount.get(ruleId).incrementAndGet();
+		int triggerCount = lastRuleTriggerCount.computeIfAbsent(ruleId, k -> new AtomicInteger()).incrementAndGet();
 		
 		StringBuilder ruleMeta = new StringBuilder(rule.getAgendaGroup())
 				.append("|").append(rule.getSalienceValue());
@@ -221,94 +260,85 @@ public class StateTransitionBuilder extends DefaultAgendaEventListener implement
 		ruleMeta.append("|").append(triggerCount);
 		
 		String flags = rule.getTimer() == null ? "" : "T";
-		DefaultGraphCell ruleCell = newCell(newLabel(CellType.Rule, rule.getName(), ruleMeta.toString(), formatTime(clock), flags), CellType.Rule);
-		lastObjectCell.put(ruleId, ruleCell);
+		Node ruleNode = transitions.addNode(NodeType.Rule, rule.getName(), ruleMeta.toString(), formatTime(clock), flags, true);
+		lastObjectNode.put(rule, ruleNode);
 		
-		synchronized (StateTransitionBuilder.class) {
-			graph.getGraphLayoutCache().insert(ruleCell);
-			getRuleActivatedBy(event.getMatch()).stream()
-					.map(o -> lastObjectCell.get(identityHashCode(o)))
-					.filter(Objects::nonNull).forEach(objectCell -> {
-						graph.getGraphLayoutCache().setVisible(objectCell, true);
-						graph.getGraphLayoutCache().insert(newEdge(objectCell, ruleCell));
-					});
-		}
+		getRuleActivatedBy(event.getMatch()).stream()
+				.map(lastObjectNode::get)
+				.filter(Objects::nonNull)
+				.forEach(objectNode -> transitions.addEdge(objectNode, ruleNode));
 	}
 	
 	@Override
 	public void objectInserted(ObjectInsertedEvent event) {
-		objectUpdated((InternalFactHandle) event.getFactHandle(), event.getRule(), CellType.UpdatedFact);
+		objectUpdated((InternalFactHandle) event.getFactHandle(), event.getRule(), NodeType.UpdatedFact);
 	}
 	
 	@Override
 	public void objectUpdated(ObjectUpdatedEvent event) {
-		objectUpdated((InternalFactHandle) event.getFactHandle(), event.getRule(), CellType.UpdatedFact);
+		objectUpdated((InternalFactHandle) event.getFactHandle(), event.getRule(), NodeType.UpdatedFact);
 	}
 	
 	@Override
 	public void objectDeleted(ObjectDeletedEvent event) {
-		objectUpdated((InternalFactHandle) event.getFactHandle(), event.getRule(), CellType.DeletedFact);
+		objectUpdated((InternalFactHandle) event.getFactHandle(), event.getRule(), NodeType.DeletedFact);
 	}
 	
-	private void objectUpdated(InternalFactHandle factHandle, Rule rule, CellType cellType) {
+	private void objectUpdated(InternalFactHandle factHandle, Rule rule, NodeType nodeType) {
 		Object fact = factHandle.getObject();
 		int factId = identityHashCode(fact);
-		if (!lastObjectState.containsKey(factId))
-			lastObjectState.putIfAbsent(factId, new AtomicInteger());
-		AtomicInteger state = lastObjectState.get(factId);
-		String stateId = format("#%s-%s", factId, cellType == CellType.DeletedFact ? state : state.incrementAndGet());
+		AtomicInteger state = lastObjectState.computeIfAbsent(factId, k -> new AtomicInteger());
+		String stateId = format("#%s-%s", factId, nodeType == NodeType.DeletedFact ? state : state.incrementAndGet());
 		
-		writeToFile(fact, stateId);
+		// the state is captured now, the dump is written after the scenario
+		stateDumps.add(new String[] { format("%s%s.txt", fact.getClass().getSimpleName(), stateId), objectStateDump(fact) });
 		
 		String flags = factHandle.isEvent() ? "E" : "";
-		DefaultGraphCell cell = newCell(newLabel(cellType, fact.getClass().getSimpleName(), stateId, formatTime(clock), flags), cellType);
-		lastObjectCell.put(factId, cell);
+		Node node = transitions.addNode(nodeType, fact.getClass().getSimpleName(), stateId, formatTime(clock), flags, false);
+		lastObjectNode.put(fact, node);
 		
-		synchronized (StateTransitionBuilder.class) {
-			graph.getGraphLayoutCache().insert(cell);
-			graph.getGraphLayoutCache().setVisible(cell, false);
-			
-			if (rule != null) {
-				graph.getGraphLayoutCache().setVisible(cell, true);
-				graph.getGraphLayoutCache().insert(newEdge(lastObjectCell.get(identityHashCode(rule)), cell));
-			}
-		}
-	}
-	
-	private void writeToFile(Object fact, String stateId) {
-		try {
-			String fileName = format("%s/%s%s.txt", getReportName(), fact.getClass().getSimpleName(), stateId);
-			writeStringToFile(new File(reportsDirectory, fileName), objectStateDump(fact), defaultCharset());
-		} catch (IOException e) {
-			throw new DroolsAssertException("Cannot write object state to file", e);
-		}
+		Node ruleNode = rule == null ? null : lastObjectNode.get(rule);
+		if (ruleNode != null)
+			transitions.addEdge(ruleNode, node);
 	}
 	
 	protected String objectStateDump(Object fact) {
 		return toYaml(fact);
 	}
 	
-	private JGraph newGraph() {
+	private JGraph newGraph(TransitionGraph transitions) {
 		GraphModel model = new DefaultGraphModel();
 		GraphLayoutCache view = new GraphLayoutCache(model, new DefaultCellViewFactory(), true);
-		return new JGraph(model, view);
+		JGraph graph = new JGraph(model, view);
+		
+		DefaultGraphCell[] cells = new DefaultGraphCell[transitions.nodes.size()];
+		for (Node node : transitions.nodes) {
+			if (!node.visible)
+				continue;
+			cells[node.id] = newCell(newLabel(node.type, node.name, node.meta, node.time, node.flags), node.type);
+			view.insert(cells[node.id]);
+		}
+		int edgeCounter = 0;
+		for (Edge edge : transitions.edges)
+			view.insert(newEdge(cells[edge.source.id], cells[edge.target.id], ++edgeCounter));
+		return graph;
 	}
 	
-	private DefaultGraphCell newCell(String label, CellType cellType) {
+	private DefaultGraphCell newCell(String label, NodeType nodeType) {
 		DefaultGraphCell cell = new DefaultGraphCell(label);
 		cell.add(new DefaultPort());
 		
 		setBounds(cell.getAttributes(), new Rectangle2D.Double(0, 0, 100, 50));
 		setInset(cell.getAttributes(), 3);
-		setBackground(cell.getAttributes(), Color.decode(cellType.background));
-		setBorderColor(cell.getAttributes(), Color.decode(cellType.borderColor));
+		setBackground(cell.getAttributes(), Color.decode(nodeType.background));
+		setBorderColor(cell.getAttributes(), Color.decode(nodeType.borderColor));
 		setAutoSize(cell.getAttributes(), true);
 		setOpaque(cell.getAttributes(), true);
 		return cell;
 	}
 	
-	private DefaultEdge newEdge(DefaultGraphCell cell1, DefaultGraphCell cell2) {
-		DefaultEdge edge = new DefaultEdge(adgeCounter.incrementAndGet());
+	private DefaultEdge newEdge(DefaultGraphCell cell1, DefaultGraphCell cell2, int edgeId) {
+		DefaultEdge edge = new DefaultEdge(edgeId);
 		edge.setSource(cell1.getChildAt(0));
 		edge.setTarget(cell2.getChildAt(0));
 		
@@ -319,7 +349,7 @@ public class StateTransitionBuilder extends DefaultAgendaEventListener implement
 		return edge;
 	}
 	
-	private String newLabel(CellType cellType, String line1, String line2, String line3, String flags) {
+	private String newLabel(NodeType nodeType, String line1, String line2, String line3, String flags) {
 		StringBuilder sb = new StringBuilder();
 		sb.append("<html>");
 		sb.append("<table style='width:100%'>");
@@ -338,7 +368,7 @@ public class StateTransitionBuilder extends DefaultAgendaEventListener implement
 		
 		sb.append("<table style='margin-top: -7; margin-bottom: -7; margin-left: -4; margin-right: -4; width:100%;'>");
 		sb.append("<tr>");
-		sb.append(format("<td style='padding: 0px; font-family:verdana; font-size:8px; font-weight: normal; color: %s'>", cellType.background));
+		sb.append(format("<td style='padding: 0px; font-family:verdana; font-size:8px; font-weight: normal; color: %s'>", nodeType.background));
 		sb.append(flags);
 		sb.append("</td>");
 		sb.append("<td style='padding: 0px; font-family:verdana; font-size:8px; font-weight: lighter; width: 100%; text-align: center;'>");
@@ -357,11 +387,12 @@ public class StateTransitionBuilder extends DefaultAgendaEventListener implement
 		return sb.toString();
 	}
 	
-	private void layout(JGraph graph) {
+	private JGraph layout(JGraph graph) {
 		JGraphFacade facade = new JGraphFacade(graph);
 		JGraphHierarchicalLayout layout = new JGraphHierarchicalLayout();
 		layout.run(facade);
 		graph.getGraphLayoutCache().edit(facade.createNestedMap(true, true));
+		return graph;
 	}
 	
 	private void awaitForDialogClose(JFrame frame) {
@@ -385,4 +416,31 @@ public class StateTransitionBuilder extends DefaultAgendaEventListener implement
 	protected String getReportName() {
 		return (test + "#" + scenario).replace('/', '.');
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Lazily started report workers, pending reports are completed on JVM shutdown
+	 */
+	private static final class Renderers {
+		private static final ExecutorService reports = newFixedThreadPool(
+				parseInt(getProperty("droolsassert.stateTransitionReportThreads", String.valueOf(getRuntime().availableProcessors()))),
+				daemonThreads("droolsassert-state-transition-%d"));
+		private static final ExecutorService imageRenderer = newSingleThreadExecutor(daemonThreads("droolsassert-state-transition-image"));
+		
+		static {
+			getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					reports.shutdown();
+					reports.awaitTermination(1, MINUTES);
+					imageRenderer.shutdown();
+					imageRenderer.awaitTermination(1, MINUTES);
+				} catch (InterruptedException e) {
+					// exit
+				}
+			}));
+		}
+		
+		private static ThreadFactory daemonThreads(String nameFormat) {
+			return new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build();
+		}
+	}
+}
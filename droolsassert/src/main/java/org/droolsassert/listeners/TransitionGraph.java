@@ -0,0 +1,161 @@
+package org.droolsassert.listeners;
+
+import static java.lang.Math.max;
+import static java.lang.String.format;
+import static java.util.Comparator.comparingInt;
+import static org.apache.commons.text.StringEscapeUtils.escapeXml10;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact state transition records of a scenario appended by {@link StateTransitionBuilder} while rules are fired.<br>
+ * Nodes are appended in event order and edges always lead from an earlier node to a later one,
+ * so the graph can be rendered after the scenario without AWT, see {@link #toDot(String)} and {@link #toSvg()}.
+ */
+class TransitionGraph {
+	
+	enum NodeType {
+		UpdatedFact("#c8edc2", "#42b52f"),
+		DeletedFact("#ebebeb", "#9e9e9e"),
+		Rule("#c7e7ff", "#4eb3fc");
+		
+		final String background;
+		final String borderColor;
+		
+		private NodeType(String background, String borderColor) {
+			this.background = background;
+			this.borderColor = borderColor;
+		}
+	}
+	
+	static final class Node {
+		final int id;
+		final NodeType type;
+		final String name;
+		final String meta;
+		final String time;
+		final String flags;
+		boolean visible;
+		
+		private Node(int id, NodeType type, String name, String meta, String time, String flags, boolean visible) {
+			this.id = id;
+			this.type = type;
+			this.name = name;
+			this.meta = meta;
+			this.time = time;
+			this.flags = flags;
+			this.visible = visible;
+		}
+	}
+	
+	static final class Edge {
+		final Node source;
+		final Node target;
+		
+		private Edge(Node source, Node target) {
+			this.source = source;
+			this.target = target;
+		}
+	}
+	
+	private static final int CHAR_WIDTH = 7;
+	private static final int NODE_HEIGHT = 48;
+	private static final int H_GAP = 20;
+	private static final int V_GAP = 40;
+	private static final int MARGIN = 10;
+	
+	final List<Node> nodes = new ArrayList<>();
+	final List<Edge> edges = new ArrayList<>();
+	
+	Node addNode(NodeType type, String name, String meta, String time, String flags, boolean visible) {
+		Node node = new Node(nodes.size(), type, name, meta, time, flags, visible);
+		nodes.add(node);
+		return node;
+	}
+	
+	/**
+	 * Connects the nodes and makes both visible
+	 */
+	void addEdge(Node source, Node target) {
+		source.visible = true;
+		target.visible = true;
+		edges.add(new Edge(source, target));
+	}
+	
+	String toDot(String name) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("digraph \"").append(escapeDot(name)).append("\" {\n");
+		sb.append("\tnode [shape=box, style=\"rounded,filled\", fontname=\"tahoma\", fontsize=10];\n");
+		for (Node node : nodes) {
+			if (!node.visible)
+				continue;
+			sb.append(format("\tn%s [label=\"%s\\n%s\\n%s\", fillcolor=\"%s\", color=\"%s\"];\n",
+					node.id, escapeDot(node.name), escapeDot(node.meta), (node.time + " " + node.flags).trim(), node.type.background, node.type.borderColor));
+		}
+		for (Edge edge : edges)
+			sb.append(format("\tn%s -> n%s;\n", edge.source.id, edge.target.id));
+		sb.append("}\n");
+		return sb.toString();
+	}
+	
+	/**
+	 * Renders the graph with simple layered layout, each node is placed one layer below the lowest of its sources
+	 */
+	String toSvg() {
+		int[] layer = new int[nodes.size()];
+		List<Edge> sortedEdges = new ArrayList<>(edges);
+		sortedEdges.sort(comparingInt(edge -> edge.target.id));
+		for (Edge edge : sortedEdges)
+			layer[edge.target.id] = max(layer[edge.target.id], layer[edge.source.id] + 1);
+		
+		int[] x = new int[nodes.size()];
+		int[] width = new int[nodes.size()];
+		List<Integer> layerWidth = new ArrayList<>();
+		for (Node node : nodes) {
+			if (!node.visible)
+				continue;
+			while (layerWidth.size() <= layer[node.id])
+				layerWidth.add(MARGIN);
+			width[node.id] = max(max(node.name.length(), node.meta.length()), node.time.length() + 2 * node.flags.length() + 2) * CHAR_WIDTH + 12;
+			x[node.id] = layerWidth.get(layer[node.id]);
+			layerWidth.set(layer[node.id], x[node.id] + width[node.id] + H_GAP);
+		}
+		int svgWidth = layerWidth.stream().mapToInt(Integer::intValue).max().orElse(MARGIN) + MARGIN;
+		int svgHeight = layerWidth.size() * (NODE_HEIGHT + V_GAP) + MARGIN;
+		
+		StringBuilder sb = new StringBuilder();
+		sb.append(format("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"%s\" height=\"%s\" font-family=\"tahoma,verdana,serif\">%n", svgWidth, svgHeight));
+		sb.append("<defs><marker id=\"arrow\" markerWidth=\"10\" markerHeight=\"10\" refX=\"9\" refY=\"3\" orient=\"auto\">");
+		sb.append("<path d=\"M0,0 L9,3 L0,6 z\" fill=\"#404040\"/></marker></defs>\n");
+		for (Edge edge : edges) {
+			sb.append(format("<line x1=\"%s\" y1=\"%s\" x2=\"%s\" y2=\"%s\" stroke=\"#404040\" marker-end=\"url(#arrow)\"/>%n",
+					x[edge.source.id] + width[edge.source.id] / 2, y(layer[edge.source.id]) + NODE_HEIGHT,
+					x[edge.target.id] + width[edge.target.id] / 2, y(layer[edge.target.id])));
+		}
+		for (Node node : nodes) {
+			if (!node.visible)
+				continue;
+			int nx = x[node.id];
+			int ny = y(layer[node.id]);
+			int center = nx + width[node.id] / 2;
+			sb.append(format("<rect x=\"%s\" y=\"%s\" width=\"%s\" height=\"%s\" rx=\"4\" fill=\"%s\" stroke=\"%s\"/>%n",
+					nx, ny, width[node.id], NODE_HEIGHT, node.type.background, node.type.borderColor));
+			sb.append(format("<text x=\"%s\" y=\"%s\" text-anchor=\"middle\" font-size=\"11\">%s</text>%n", center, ny + 15, escapeXml10(node.name)));
+			sb.append(format("<text x=\"%s\" y=\"%s\" text-anchor=\"middle\" font-size=\"8\">%s</text>%n", center, ny + 29, escapeXml10(node.meta)));
+			sb.append(format("<text x=\"%s\" y=\"%s\" text-anchor=\"middle\" font-size=\"8\">%s</text>%n", center, ny + 42, node.time));
+			if (!node.flags.isEmpty())
+				sb.append(format("<text x=\"%s\" y=\"%s\" text-anchor=\"end\" font-size=\"8\" fill=\"red\">%s</text>%n", nx + width[node.id] - 3, ny + 42, node.flags));
+		}
+		sb.append("</svg>\n");
+		return sb.toString();
+	}
+	
+	private static int y(int layer) {
+		return MARGIN + layer * (NODE_HEIGHT + V_GAP);
+	}
+	
+	private static String escapeDot(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+}
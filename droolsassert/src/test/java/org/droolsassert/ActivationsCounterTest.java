@@ -0,0 +1,97 @@
+package org.droolsassert;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.droolsassert.ActivationsCounter.Checkpoint;
+import org.junit.Test;
+
+public class ActivationsCounterTest {
+	
+	private ActivationsCounter activations = new ActivationsCounter();
+	
+	@Test
+	public void testSince() {
+		activations.activated("rule1");
+		activations.activated("rule2");
+		Checkpoint checkpoint = activations.checkpoint();
+		assertTrue(activations.since(checkpoint).isEmpty());
+		
+		activations.activated("rule3");
+		activations.activated("rule1");
+		activations.activated("rule3");
+		
+		assertOrdered(map("rule3", 2, "rule1", 1), activations.since(checkpoint));
+		assertOrdered(map("rule1", 2, "rule2", 1, "rule3", 2), activations.asMap());
+		assertEquals(5, activations.total());
+	}
+	
+	@Test
+	public void testNestedCheckpoints() {
+		Checkpoint first = activations.checkpoint();
+		activations.activated("rule1");
+		Checkpoint second = activations.checkpoint();
+		activations.activated("rule2");
+		activations.activated("rule1");
+		Checkpoint third = activations.checkpoint();
+		activations.activated("rule1");
+		
+		assertOrdered(map("rule1", 3, "rule2", 1), activations.since(first));
+		assertOrdered(map("rule2", 1, "rule1", 2), activations.since(second));
+		assertOrdered(map("rule1", 1), activations.since(third));
+	}
+	
+	@Test
+	public void testActivatedSince() {
+		activations.activated("rule1");
+		Checkpoint checkpoint = activations.checkpoint();
+		assertFalse(activations.activatedSince(checkpoint));
+		assertFalse(activations.activatedSince(checkpoint, "rule1"));
+		
+		activations.activated("rule2");
+		assertTrue(activations.activatedSince(checkpoint));
+		assertTrue(activations.activatedSince(checkpoint, "rule2"));
+		assertFalse("activated before the checkpoint only", activations.activatedSince(checkpoint, "rule1"));
+		assertFalse("unknown rule", activations.activatedSince(checkpoint, "rule3"));
+		
+		Checkpoint next = activations.checkpoint();
+		assertFalse(activations.activatedSince(next, "rule2"));
+		assertTrue(activations.activatedSince(checkpoint, "rule2"));
+	}
+	
+	@Test
+	public void testGrowth() {
+		Checkpoint checkpoint = activations.checkpoint();
+		List<Checkpoint> checkpoints = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			checkpoints.add(activations.checkpoint());
+			for (int j = 0; j <= i; j++)
+				activations.activated("rule" + j);
+		}
+		
+		assertEquals(100, activations.since(checkpoint).size());
+		assertEquals(100, activations.count("rule0"));
+		assertEquals(1, activations.count("rule99"));
+		Map<String, Integer> last = activations.since(checkpoints.get(99));
+		assertEquals(100, last.size());
+		assertTrue(last.values().stream().allMatch(count -> count == 1));
+		assertEquals(5050, activations.total());
+	}
+	
+	private static void assertOrdered(Map<String, Integer> expected, Map<String, Integer> actual) {
+		assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(actual.entrySet()));
+	}
+	
+	private static Map<String, Integer> map(Object... keyValues) {
+		Map<String, Integer> map = new LinkedHashMap<>();
+		for (int i = 0; i < keyValues.length; i += 2)
+			map.put((String) keyValues[i], (Integer) keyValues[i + 1]);
+		return map;
+	}
+}
@@ -0,0 +1,83 @@
+package org.droolsassert;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.apache.commons.io.FileUtils.readLines;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.droolsassert.AsyncLog.Overflow;
+import org.junit.Test;
+
+public class AsyncLogTest {
+	
+	@Test
+	public void testRecordsAreWrittenInOrder() throws Exception {
+		File file = File.createTempFile("asyncLog", ".log");
+		file.deleteOnExit();
+		AsyncLog log = new AsyncLog(16, Overflow.BLOCK, file);
+		for (int i = 0; i < 1000; i++)
+			log.log(i * 1000L, "record " + i);
+		log.flush();
+		
+		List<String> lines = readLines(file, UTF_8);
+		assertEquals(1000, lines.size());
+		assertEquals("00:00:00 record 0", lines.get(0));
+		assertEquals("00:16:39 record 999", lines.get(999));
+	}
+	
+	@Test
+	public void testOverflowDrop() throws Exception {
+		BlockedSink sink = new BlockedSink();
+		AsyncLog log = new AsyncLog(1, Overflow.DROP, new PrintStream(sink, false, UTF_8.name()));
+		log.log(0, "record 0");
+		sink.writing.await();
+		log.log(0, "record 1");
+		for (int i = 2; i < 1000; i++)
+			log.log(0, "record " + i);
+		sink.released.countDown();
+		log.flush();
+		
+		assertEquals(asList("00:00:00 record 0", "00:00:00 record 1", "998 log records dropped"), asList(sink.toString(UTF_8.name()).split(System.lineSeparator())));
+	}
+	
+	@Test(timeout = 10_000)
+	public void testFlushDoesNotWaitForDeadWriter() throws Exception {
+		AsyncLog log = new AsyncLog(1, Overflow.BLOCK, new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+				throw new AssertionError("writer thread dies");
+			}
+		}));
+		log.log(0, "record 0");
+		log.log(0, "record 1");
+		log.log(0, "record 2");
+		assertFalse(log.flush());
+	}
+	
+	/**
+	 * Blocks the writer thread on the first write until released
+	 */
+	private static class BlockedSink extends ByteArrayOutputStream {
+		private final CountDownLatch writing = new CountDownLatch(1);
+		private final CountDownLatch released = new CountDownLatch(1);
+		
+		@Override
+		public synchronized void write(byte[] b, int off, int len) {
+			writing.countDown();
+			try {
+				released.await();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+			super.write(b, off, len);
+		}
+	}
+}
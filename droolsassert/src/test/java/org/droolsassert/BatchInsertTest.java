@@ -0,0 +1,88 @@
+package org.droolsassert;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.api.runtime.rule.FactHandle;
+
+@DroolsSession("org/droolsassert/rules.drl")
+public class BatchInsertTest {
+	
+	@Rule
+	public DroolsAssert drools = new DroolsAssert();
+	
+	/** fact count -> clock time of each fireAllRules, rules do not insert facts so the count identifies the fire */
+	private Map<Long, Long> fires = new LinkedHashMap<>();
+	
+	@Before
+	public void before() {
+		drools.getSession().addEventListener(new DefaultAgendaEventListener() {
+			@Override
+			public void afterMatchFired(AfterMatchFiredEvent event) {
+				fires.putIfAbsent(drools.getSession().getFactCount(), drools.getSession().getSessionClock().getCurrentTime());
+			}
+		});
+	}
+	
+	@Test
+	public void testFireEvery() {
+		List<AtomicInteger> facts = IntStream.range(0, 25).mapToObj(i -> new AtomicInteger()).collect(toList());
+		List<FactHandle> factHandles = drools.insertBatch(facts).fireEvery(10).insertAndFire();
+		
+		assertEquals(25, factHandles.size());
+		assertEquals(asList(10L, 20L, 25L), new ArrayList<>(fires.keySet()));
+		assertTrue(facts.stream().allMatch(fact -> fact.get() == 1));
+		drools.assertActivatedCount(25, "before", 25, "atomic int rule", 25, "after");
+	}
+	
+	@Test
+	public void testTimeSlices() {
+		List<FactHandle> factHandles = drools.insertBatch(LongStream.range(0, 10).mapToObj(i -> new AtomicLong(i * 500)))
+				.fireEvery(1, SECONDS, AtomicLong::get)
+				.withoutHandles()
+				.insertAndFire();
+		
+		assertTrue(factHandles.isEmpty());
+		assertEquals(asList(2L, 4L, 6L, 8L, 10L), new ArrayList<>(fires.keySet()));
+		assertEquals(asList(500L, 1500L, 2500L, 3500L, 4500L), new ArrayList<>(fires.values()));
+		drools.assertActivatedCount(10, "before", 10, "atomic long rule", 10, "after");
+	}
+	
+	@Test
+	public void testFireEveryReplacesTimeSlices() {
+		drools.insertBatch(LongStream.range(0, 10).mapToObj(i -> new AtomicLong(i * 500)))
+				.fireEvery(1, SECONDS, AtomicLong::get)
+				.fireEvery(4)
+				.insertAndFire();
+		
+		assertEquals(asList(4L, 8L, 10L), new ArrayList<>(fires.keySet()));
+		assertEquals(0, drools.getSession().getSessionClock().getCurrentTime());
+	}
+	
+	@Test
+	public void testTimeSlicesReplaceFireEvery() {
+		drools.insertBatch(LongStream.range(0, 10).mapToObj(i -> new AtomicLong(i * 500)))
+				.fireEvery(3)
+				.fireEvery(1, SECONDS, AtomicLong::get)
+				.insertAndFire();
+		
+		assertEquals(asList(2L, 4L, 6L, 8L, 10L), new ArrayList<>(fires.keySet()));
+	}
+}
@@ -1,9 +1,13 @@
 package org.droolsassert;
 
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.DAYS;
 import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -11,6 +15,8 @@ import java.util.List;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
 
 @DroolsSession("org/droolsassert/complexEventProcessing.drl")
 public class ComplexEventProcessingTest {
@@ -79,6 +85,44 @@ public class ComplexEventProcessingTest {
 		drools.assertAllRetracted();
 	}
 	
+	@Test
+	public void testAdvanceTimeJumpsToScheduledJobs() {
+		Dialing caller1Dial = new Dialing("11111", "22222");
+		drools.insertAndFire(caller1Dial);
+		CallInProgress call = drools.getObject(CallInProgress.class);
+		Dialing caller3Dial = new Dialing("33333", "22222");
+		drools.insertAndFire(caller3Dial);
+		
+		drools.advanceTime(MILLISECONDS, 7000);
+		assertEquals(7000, drools.getSession().getSessionClock().getCurrentTime());
+		// session objects directly, assertions look 1ms ahead for expired events
+		assertTrue(drools.getSession().getObjects().containsAll(asList(call, caller3Dial)));
+		drools.advanceTime(MILLISECONDS, 1);
+		drools.assertRetracted(caller3Dial);
+		
+		drools.advanceTime(MILLISECONDS, DAYS.toMillis(1));
+		drools.assertRetracted(call);
+		assertEquals(7001 + DAYS.toMillis(1), drools.getSession().getSessionClock().getCurrentTime());
+	}
+	
+	@Test
+	public void testAdvanceTimeStopsOnTickBoundary() {
+		List<Long> firedAt = new ArrayList<>();
+		drools.getSession().addEventListener(new DefaultAgendaEventListener() {
+			@Override
+			public void afterMatchFired(AfterMatchFiredEvent event) {
+				if ("drop dial-up if callee is talking".equals(event.getMatch().getRule().getName()))
+					firedAt.add(drools.getSession().getSessionClock().getCurrentTime());
+			}
+		});
+		drools.insertAndFire(new Dialing("11111", "22222"));
+		drools.insertAndFire(new Dialing("33333", "22222"));
+		
+		drools.advanceTime(SECONDS, 10);
+		assertEquals(asList(8000L), firedAt);
+		assertEquals(10_000, drools.getSession().getSessionClock().getCurrentTime());
+	}
+	
 	@Test
 	public void testCallsConnectAndDisconnectLogicStickToEvents() {
 		Dialing caller1Dial = new Dialing("11111", "22222");
@@ -0,0 +1,125 @@
+package org.droolsassert;
+
+import static java.lang.Runtime.getRuntime;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.droolsassert.ComplexEventProcessingTest.CallInProgress;
+import org.droolsassert.ComplexEventProcessingTest.Dialing;
+import org.droolsassert.util.PerfStat;
+import org.droolsassert.util.Stat;
+import org.junit.Test;
+
+/**
+ * Runs many short tests concurrently to prove {@link DroolsAssert} instances do not share state
+ */
+public class ConcurrencyStressTest {
+	
+	private static final int THREADS = 2 * getRuntime().availableProcessors();
+	private static final int TESTS_PER_THREAD = 50;
+	
+	@DroolsSession(resources = "org/droolsassert/rules.drl", ignoreRules = { "before", "after" })
+	static class RulesSession {
+	}
+	
+	@DroolsSession(resources = "org/droolsassert/rules.drl", ignoreRules = { "before", "after" }, pooledSession = true)
+	static class PooledRulesSession {
+	}
+	
+	@DroolsSession("org/droolsassert/complexEventProcessing.drl")
+	static class EventsSession {
+	}
+	
+	@Test
+	public void testParallelSessions() throws Exception {
+		runConcurrently(t -> testAtomics(RulesSession.class, t));
+	}
+	
+	@Test
+	public void testParallelPooledSessions() throws Exception {
+		runConcurrently(t -> testAtomics(PooledRulesSession.class, t));
+	}
+	
+	@Test
+	public void testParallelMixedSessions() throws Exception {
+		runConcurrently(t -> {
+			if (t % 2 == 0)
+				testAtomics(t % 4 == 0 ? RulesSession.class : PooledRulesSession.class, t);
+			else
+				testCalls();
+		});
+	}
+	
+	private void testAtomics(Class<?> sessionMetaHolder, int test) {
+		DroolsAssert drools = newDroolsAssert(sessionMetaHolder);
+		try {
+			int facts = 1 + test % 5;
+			for (int i = 0; i < facts; i++)
+				drools.insertAndFire(new AtomicInteger(), new AtomicLong());
+			drools.assertFactsCount(2 * facts);
+			drools.assertActivatedCount(facts, "atomic int rule", facts, "atomic long rule");
+			Stat ruleStat = drools.getRulesChrono().getPerfStat().get("atomic int rule");
+			assertEquals(facts, ruleStat.getLeapsCount());
+			assertNotSame("Session statistic is detached", ruleStat, PerfStat.getPerfStat("atomic int rule"));
+		} finally {
+			drools.destroy();
+		}
+	}
+	
+	private void testCalls() {
+		DroolsAssert drools = newDroolsAssert(EventsSession.class);
+		try {
+			drools.setGlobal("stdout", System.out);
+			Dialing dialing = new Dialing("11111", "22222");
+			drools.insertAndFire(dialing);
+			drools.assertRetracted(dialing);
+			drools.getObject(CallInProgress.class);
+			drools.advanceTime(1, MINUTES);
+		} finally {
+			drools.destroy();
+		}
+	}
+	
+	private void runConcurrently(TestBody testBody) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			CountDownLatch startLatch = new CountDownLatch(1);
+			List<Future<?>> results = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				int thread = t;
+				results.add(executor.submit(() -> {
+					startLatch.await();
+					for (int i = 0; i < TESTS_PER_THREAD; i++)
+						testBody.run(thread * TESTS_PER_THREAD + i);
+					return null;
+				}));
+			}
+			startLatch.countDown();
+			for (Future<?> result : results)
+				result.get(5, MINUTES);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	private DroolsAssert newDroolsAssert(Class<?> sessionMetaHolder) {
+		DroolsAssert drools = new DroolsAssert();
+		drools.init(sessionMetaHolder.getAnnotation(DroolsSession.class), null);
+		return drools;
+	}
+	
+	@FunctionalInterface
+	private interface TestBody {
+		void run(int test);
+	}
+}
@@ -0,0 +1,74 @@
+package org.droolsassert;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+import static org.junit.jupiter.api.parallel.ExecutionMode.SAME_THREAD;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.parallel.Execution;
+import org.kie.api.KieBase;
+
+@DroolsJupiterTest
+@DroolsSession(resources = "org/droolsassert/rules.drl", ignoreRules = { "before", "after" })
+public class DroolsAssertExtensionTest {
+	
+	private static final AtomicReference<KieBase> kieBase = new AtomicReference<>();
+	
+	private DroolsAssert drools;
+	
+	@Test
+	@TestRules(expected = "atomic int rule")
+	public void testInjectedField() {
+		drools.insertAndFire(new AtomicInteger());
+		assertEquals(1, drools.getObject(AtomicInteger.class).get());
+	}
+	
+	@Test
+	@TestRules(expectedCount = { "2", "atomic long rule" })
+	public void testResolvedParameter(DroolsAssert drools) {
+		assertSame(this.drools, drools);
+		drools.insertAndFire(new AtomicLong(), new AtomicLong());
+	}
+	
+	@RepeatedTest(20)
+	public void testKieBaseSharedBySessions() {
+		kieBase.compareAndSet(null, drools.getSession().getKieBase());
+		assertSame(kieBase.get(), drools.getSession().getKieBase());
+		drools.insertAndFire(new AtomicInteger());
+		drools.assertFactsCount(1);
+		drools.assertActivated("atomic int rule");
+	}
+	
+	@Nested
+	@TestInstance(PER_CLASS)
+	@TestMethodOrder(OrderAnnotation.class)
+	@Execution(SAME_THREAD)
+	public class SessionPerInstanceTest {
+		
+		@Test
+		@Order(1)
+		public void testFirst(DroolsAssert drools) {
+			drools.insertAndFire(new AtomicInteger());
+			drools.assertFactsCount(1);
+		}
+		
+		@Test
+		@Order(2)
+		public void testSecond(DroolsAssert drools) {
+			drools.insertAndFire(new AtomicInteger());
+			drools.assertFactsCount(2);
+			drools.assertAllActivations("atomic int rule");
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package org.droolsassert;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.droolsassert.ComplexEventProcessingTest.Dialing;
+import org.droolsassert.listeners.EventJournal;
+import org.droolsassert.listeners.EventJournalReader;
+import org.droolsassert.listeners.EventJournalReader.EventType;
+import org.droolsassert.listeners.EventJournalReader.JournalEvent;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+
+@DroolsSession(resources = "org/droolsassert/complexEventProcessing.drl", log = false)
+public class EventJournalTest {
+	
+	@Rule
+	public DroolsAssert drools = new DroolsAssert();
+	
+	@Before
+	public void before() {
+		drools.setGlobal("stdout", System.out);
+	}
+	
+	@Test
+	public void testJournalIsReadBack() throws Exception {
+		File directory = Files.createTempDirectory("eventJournal").toFile();
+		EventJournal journal = new EventJournal(drools.getSession().getSessionClock(), directory, true);
+		journal.beforeScenario("EventJournalTest", "testJournalIsReadBack");
+		drools.getSession().addEventListener((RuleRuntimeEventListener) journal);
+		drools.getSession().addEventListener((AgendaEventListener) journal);
+		
+		drools.insertAndFire(new Dialing("11111", "22222"));
+		drools.advanceTime(1, HOURS);
+		journal.afterScenario();
+		
+		try (EventJournalReader reader = new EventJournalReader(new File(directory, "EventJournalTest#testJournalIsReadBack.journal"))) {
+			assertEquals("testJournalIsReadBack", reader.getScenario());
+			
+			JournalEvent dialing = reader.next();
+			assertEquals(EventType.INSERTED, dialing.getType());
+			assertEquals(Dialing.class.getName(), dialing.getFactClass());
+			assertEquals("DEFAULT", dialing.getEntryPoint());
+			assertNull(dialing.getRule());
+			assertTrue(dialing.getFact().contains("\"callerNumber\":\"11111\""));
+			
+			JournalEvent inputCall = reader.next();
+			assertEquals(EventType.FIRED, inputCall.getType());
+			assertEquals("input call", inputCall.getRule());
+			assertEquals("[ComplexEventProcessingTest.Dialing#0]", inputCall.getTuple().toString());
+			
+			JournalEvent callInProgress = reader.next();
+			assertEquals(EventType.INSERTED, callInProgress.getType());
+			assertEquals("input call", callInProgress.getRule());
+			assertEquals(1, callInProgress.getFactId());
+			
+			JournalEvent dialingRetracted = reader.next();
+			assertEquals(EventType.DELETED, dialingRetracted.getType());
+			assertEquals(0, dialingRetracted.getFactId());
+			
+			JournalEvent callDropped = null;
+			while (reader.hasNext()) {
+				JournalEvent event = reader.next();
+				if (event.getType() == EventType.DELETED && event.getFactId() == 1)
+					callDropped = event;
+			}
+			assertEquals(30 * 60 * 1000, callDropped.getTime());
+			assertEquals("call in progress dropped", callDropped.getRule());
+		}
+	}
+	
+	@Test
+	public void testBufferGrowsOnDemand() throws Exception {
+		File directory = Files.createTempDirectory("eventJournal").toFile();
+		EventJournal journal = new EventJournal(drools.getSession().getSessionClock(), directory, true);
+		journal.beforeScenario("EventJournalTest", "testBufferGrowsOnDemand");
+		drools.getSession().addEventListener((RuleRuntimeEventListener) journal);
+		
+		int calls = 500;
+		for (int i = 0; i < calls; i++)
+			drools.insertAndFire(new Dialing("1" + i, "2" + i));
+		journal.afterScenario();
+		
+		File journalFile = new File(directory, "EventJournalTest#testBufferGrowsOnDemand.journal");
+		assertTrue(journalFile.length() > 4096);
+		int dialings = 0;
+		try (EventJournalReader reader = new EventJournalReader(journalFile)) {
+			while (reader.hasNext()) {
+				JournalEvent event = reader.next();
+				if (event.getType() == EventType.INSERTED && Dialing.class.getName().equals(event.getFactClass()))
+					dialings++;
+			}
+		}
+		assertEquals(calls, dialings);
+	}
+}
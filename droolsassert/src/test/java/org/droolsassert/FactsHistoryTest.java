@@ -0,0 +1,89 @@
+package org.droolsassert;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class FactsHistoryTest {
+	
+	@Test
+	public void testSequence() {
+		FactsHistory history = new FactsHistory();
+		String fact1 = new String("fact");
+		String fact2 = new String("fact");
+		history.add(fact1);
+		history.add(fact2);
+		history.add(fact1);
+		
+		assertEquals(2, history.size());
+		assertEquals(0, history.sequence(fact1));
+		assertEquals(1, history.sequence(fact2));
+		assertFalse("equal but not the same", history.contains(new String("fact")));
+	}
+	
+	@Test
+	public void testResize() {
+		FactsHistory history = new FactsHistory();
+		List<Object> facts = addFacts(history, 10_000);
+		
+		assertEquals(10_000, history.size());
+		for (int i = 0; i < facts.size(); i++)
+			assertEquals(i, history.sequence(facts.get(i)));
+	}
+	
+	@Test
+	public void testCollisions() {
+		FactsHistory history = new CollidingFactsHistory();
+		List<Object> facts = addFacts(history, 100);
+		
+		assertEquals(100, history.size());
+		for (int i = 0; i < facts.size(); i++)
+			assertEquals(i, history.sequence(facts.get(i)));
+		assertFalse(history.contains(new Object()));
+	}
+	
+	@Test
+	public void testClearedFactsRemoved() throws InterruptedException {
+		FactsHistory history = new CollidingFactsHistory();
+		List<Object> facts = addFacts(history, 100);
+		for (int i = facts.size() - 1; i >= 0; i -= 2)
+			facts.remove(i);
+		
+		for (int i = 0; i < 100 && history.size() > 50; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		
+		assertEquals(50, history.size());
+		for (int i = 0; i < facts.size(); i++)
+			assertEquals("probe chain is not broken by deletion", i * 2, history.sequence(facts.get(i)));
+		assertFalse(history.contains(new Object()));
+		
+		Object fact = new Object();
+		history.add(fact);
+		assertTrue(history.contains(fact));
+		assertEquals(100, history.sequence(fact));
+	}
+	
+	private List<Object> addFacts(FactsHistory history, int count) {
+		List<Object> facts = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Object fact = new Object();
+			facts.add(fact);
+			history.add(fact);
+		}
+		return facts;
+	}
+	
+	private static class CollidingFactsHistory extends FactsHistory {
+		@Override
+		int hash(Object fact) {
+			return 7;
+		}
+	}
+}
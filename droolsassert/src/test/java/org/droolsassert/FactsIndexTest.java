@@ -0,0 +1,46 @@
+package org.droolsassert;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.junit.Assert.assertEquals;
+
+import org.droolsassert.ComplexEventProcessingTest.CallInProgress;
+import org.droolsassert.ComplexEventProcessingTest.Dialing;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+@DroolsSession(resources = "org/droolsassert/complexEventProcessing.drl", indexFacts = true)
+public class FactsIndexTest {
+	
+	@Rule
+	public DroolsAssert drools = new DroolsAssert();
+	
+	@Before
+	public void before() {
+		drools.setGlobal("stdout", System.out);
+	}
+	
+	@Test
+	public void testIndexedFactsLookup() {
+		Dialing caller1Dial = new Dialing("11111", "22222");
+		drools.insertAndFire(caller1Dial);
+		drools.assertRetracted(caller1Dial);
+		CallInProgress call = drools.getObject(CallInProgress.class);
+		assertEquals("11111", call.callerNumber);
+		
+		Dialing caller3Dial = new Dialing("33333", "22222");
+		drools.insertAndFire(caller3Dial);
+		assertEquals(2, drools.getObjects(Object.class).size());
+		assertEquals(1, drools.getObjects(Dialing.class, dial -> dial.callerNumber.equals("33333")).size());
+		
+		drools.advanceTime(5, MINUTES);
+		drools.assertExist(call);
+		drools.assertRetracted(caller3Dial);
+		
+		drools.advanceTime(1, HOURS);
+		drools.assertRetracted(call);
+		drools.assertAllRetracted();
+		drools.assertFactsCount(0);
+	}
+}
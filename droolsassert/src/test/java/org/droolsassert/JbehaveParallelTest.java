@@ -0,0 +1,49 @@
+package org.droolsassert;
+
+import static org.jbehave.core.io.CodeLocations.codeLocationFromClass;
+import static org.jbehave.core.reporters.Format.TXT;
+
+import java.util.List;
+
+import org.droolsassert.jbehave.DroolsAssertSteps;
+import org.droolsassert.jbehave.IsolatedStepsFactory;
+import org.droolsassert.jbehave.IsolatedStepsFactory.Scope;
+import org.jbehave.core.configuration.Configuration;
+import org.jbehave.core.configuration.MostUsefulConfiguration;
+import org.jbehave.core.io.LoadFromClasspath;
+import org.jbehave.core.io.StoryFinder;
+import org.jbehave.core.junit.JUnitStories;
+import org.jbehave.core.model.ExamplesTableFactory;
+import org.jbehave.core.model.TableTransformers;
+import org.jbehave.core.parsers.RegexStoryParser;
+import org.jbehave.core.steps.InjectableStepsFactory;
+
+public class JbehaveParallelTest extends JUnitStories {
+	
+	private Configuration configuration = new MostUsefulConfiguration()
+			.useStoryParser(new RegexStoryParser(new ExamplesTableFactory(new LoadFromClasspath(this.getClass()), new TableTransformers())));
+	private IsolatedStepsFactory stepsFactory = new IsolatedStepsFactory(configuration, DroolsAssertSteps<DroolsAssert>::new, Scope.SCENARIO);
+	
+	public JbehaveParallelTest() {
+		configuredEmbedder().embedderControls().useThreads(4);
+		configuration.useStoryReporterBuilder(stepsFactory.storyReporterBuilder()
+				.withCodeLocation(codeLocationFromClass(this.getClass()))
+				.withDefaultFormats().withFormats(TXT)
+				.withFailureTrace(true).withRelativeDirectory("jbehave-parallel"));
+	}
+	
+	@Override
+	public Configuration configuration() {
+		return configuration;
+	}
+	
+	@Override
+	public InjectableStepsFactory stepsFactory() {
+		return stepsFactory;
+	}
+	
+	@Override
+	protected List<String> storyPaths() {
+		return new StoryFinder().findPaths(codeLocationFromClass(this.getClass()), "**/stories/*.story", "");
+	}
+}
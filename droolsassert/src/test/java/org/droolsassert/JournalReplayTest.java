@@ -0,0 +1,63 @@
+package org.droolsassert;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.droolsassert.ComplexEventProcessingTest.Dialing;
+import org.droolsassert.listeners.EventJournal;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+
+@DroolsSession(resources = "org/droolsassert/complexEventProcessing.drl")
+public class JournalReplayTest {
+	
+	@Rule
+	public DroolsAssert drools = new DroolsAssert();
+	
+	@Before
+	public void before() {
+		drools.setGlobal("stdout", System.out);
+	}
+	
+	@Test
+	public void testReplayReproducesActivations() throws Exception {
+		File directory = Files.createTempDirectory("eventJournal").toFile();
+		Map<String, Integer> recorded = record(directory);
+		
+		Map<String, Integer> replayed = drools.replay(new File(directory, "JournalReplayTest#record.journal")).replay();
+		
+		assertEquals(recorded, replayed);
+		assertEquals(recorded, drools.activations.asMap());
+		drools.assertAllRetracted();
+	}
+	
+	private Map<String, Integer> record(File directory) {
+		DroolsAssert recorder = new DroolsAssert();
+		recorder.init(getClass().getAnnotation(DroolsSession.class), null);
+		try {
+			recorder.setGlobal("stdout", System.out);
+			EventJournal journal = new EventJournal(recorder.getSession().getSessionClock(), directory, true);
+			journal.beforeScenario("JournalReplayTest", "record");
+			recorder.getSession().addEventListener((RuleRuntimeEventListener) journal);
+			recorder.getSession().addEventListener((AgendaEventListener) journal);
+			
+			recorder.insertAndFire(new Dialing("11111", "22222"));
+			recorder.advanceTime(5, MINUTES);
+			recorder.insertAndFire(new Dialing("33333", "22222"));
+			recorder.advanceTime(1, HOURS);
+			journal.afterScenario();
+			return new HashMap<>(recorder.activations.asMap());
+		} finally {
+			recorder.destroy();
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package org.droolsassert;
+
+import static java.nio.file.Files.createTempDirectory;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.apache.commons.io.FileUtils.deleteDirectory;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.kie.api.io.ResourceType.DRL;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
+import org.kie.api.time.SessionPseudoClock;
+import org.kie.internal.utils.KieHelper;
+
+public class KieBaseCacheTest {
+	
+	@DroolsSession("org/droolsassert/rules.drl")
+	static class RulesSession {
+	}
+	
+	@DroolsSession("classpath*:/org/droolsassert/rul?s.drl")
+	static class SameRulesSession {
+	}
+	
+	@DroolsSession(resources = "org/droolsassert/rules.drl", baseProperties = "drools.eventProcessingMode = cloud")
+	static class CloudRulesSession {
+	}
+	
+	@Test
+	public void testSameContentSharesKieBase() {
+		DroolsAssert drools = newDroolsAssert(RulesSession.class);
+		DroolsAssert sameDrools = newDroolsAssert(SameRulesSession.class);
+		DroolsAssert cloudDrools = newDroolsAssert(CloudRulesSession.class);
+		try {
+			assertSame(drools.getSession().getKieBase(), sameDrools.getSession().getKieBase());
+			assertNotSame(drools.getSession().getKieBase(), cloudDrools.getSession().getKieBase());
+		} finally {
+			drools.destroy();
+			sameDrools.destroy();
+			cloudDrools.destroy();
+		}
+	}
+	
+	@DroolsSession(resources = "org/droolsassert/rules.drl", pooledSession = true)
+	static class PooledRulesSession {
+	}
+	
+	@Test
+	public void testPooledSessionIsReset() {
+		KieBaseCache cache = new KieBaseCache(10);
+		KieBase kieBase = cache.get("pooled", () -> new KieHelper().addContent("package test; rule 'pooled' when Integer() then end", DRL).build());
+		KieSessionConfiguration configuration = KieServices.Factory.get().newKieSessionConfiguration();
+		configuration.setOption(ClockTypeOption.get("pseudo"));
+		KieSession session = kieBase.newKieSession(configuration, null);
+		session.insert(1);
+		session.fireAllRules();
+		session.<SessionPseudoClock> getSessionClock().advanceTime(1, MINUTES);
+		cache.releaseSession(session, "pseudo");
+		
+		assertNull(cache.acquireSession(kieBase, "realtime"));
+		assertSame(session, cache.acquireSession(kieBase, "pseudo"));
+		assertEquals(0, session.getFactCount());
+		assertEquals(0, session.<SessionPseudoClock> getSessionClock().getCurrentTime());
+		session.insert(2);
+		assertEquals(1, session.fireAllRules());
+		session.dispose();
+	}
+	
+	@Test
+	public void testBorrowedSessionIsReset() {
+		DroolsAssert drools = newDroolsAssert(PooledRulesSession.class);
+		drools.insertAndFire(new AtomicInteger());
+		drools.advanceTime(1, MINUTES);
+		drools.destroy();
+		
+		// pool is shared with the tests run in parallel, borrowed session is not necessarily released above
+		drools = newDroolsAssert(PooledRulesSession.class);
+		try {
+			assertEquals(0, drools.getSession().getFactCount());
+			assertEquals(0, drools.getSession().<SessionPseudoClock> getSessionClock().getCurrentTime());
+			drools.insertAndFire(new AtomicInteger());
+			drools.assertActivated("before", "atomic int rule", "after");
+		} finally {
+			drools.destroy();
+		}
+	}
+	
+	@Test
+	public void testConcurrentRequestsCompileOnce() throws Exception {
+		KieBaseCache cache = new KieBaseCache(10);
+		AtomicInteger compilations = new AtomicInteger();
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch startLatch = new CountDownLatch(1);
+			List<Future<KieBase>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				results.add(executor.submit(() -> {
+					startLatch.await();
+					return cache.get("fingerprint", () -> {
+						compilations.incrementAndGet();
+						return new KieHelper().build();
+					});
+				}));
+			}
+			startLatch.countDown();
+			KieBase kieBase = results.get(0).get(1, MINUTES);
+			for (Future<KieBase> result : results)
+				assertSame(kieBase, result.get(1, MINUTES));
+		} finally {
+			executor.shutdownNow();
+		}
+		
+		assertEquals(1, compilations.get());
+		// threads waiting for the in-flight load are counted as misses too
+		assertEquals(threads, cache.getStats().missCount() + cache.getStats().hitCount());
+		assertEquals(1, cache.getCompileStat().getLeapsCount());
+	}
+	
+	@Test
+	public void testDiskCache() throws Exception {
+		File directory = createTempDirectory("kbase-cache").toFile();
+		try {
+			KieBaseCache cache = new KieBaseCache(10, directory);
+			cache.get("fingerprint", () -> new KieHelper().addContent("package test; rule 'disk cached' when then end", DRL).build());
+			assertEquals(1, directory.listFiles().length);
+			
+			assertEquals(1, cache.getCompileStat().getLeapsCount());
+			
+			KieBaseCache reloaded = new KieBaseCache(10, directory);
+			KieBase kieBase = reloaded.get("fingerprint", () -> {
+				throw new AssertionError("Should be loaded from disk");
+			});
+			assertNotNull(kieBase.getRule("test", "disk cached"));
+			assertEquals(1, reloaded.getDiskLoadStat().getLeapsCount());
+			assertEquals(0, reloaded.getCompileStat().getLeapsCount());
+		} finally {
+			deleteDirectory(directory);
+		}
+	}
+	
+	private DroolsAssert newDroolsAssert(Class<?> sessionMetaHolder) {
+		DroolsAssert drools = new DroolsAssert();
+		drools.init(sessionMetaHolder.getAnnotation(DroolsSession.class), null);
+		return drools;
+	}
+}
@@ -0,0 +1,55 @@
+package org.droolsassert;
+
+import static org.droolsassert.DroolsAssertUtils.getResources;
+import static org.droolsassert.util.PerfStat.getPerfStat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.springframework.core.io.Resource;
+
+@DroolsSession(resources = "classpath*:/org/droolsassert/rules.drl",
+		builderProperties = "droolsassert.parallelCompilation = true",
+		ignoreRules = { "before", "after" },
+		logResources = true)
+public class ParallelCompilationTest {
+	
+	@Rule
+	public DroolsAssert drools = new DroolsAssert();
+	
+	@Test
+	@TestRules(expected = { "atomic int rule", "atomic long rule" })
+	public void testParallelCompiledSession() {
+		drools.insertAndFire(new AtomicInteger(), new AtomicLong());
+		assertEquals(1, drools.getObject(AtomicInteger.class).get());
+		assertEquals(1, drools.getObject(AtomicLong.class).get());
+	}
+	
+	@Test
+	public void testParseStatPerResourcePath() {
+		List<Resource> resources = getResources(true, false, "classpath*:/org/droolsassert/parse/**/rules.drl");
+		assertEquals(2, resources.size());
+		
+		KieBaseCache kieBases = new KieBaseCache(10);
+		ParallelKieBaseBuilder builder = new ParallelKieBaseBuilder(new Properties(), KieServices.Factory.get().newKieBaseConfiguration(), false);
+		kieBases.get("parse", () -> {
+			KieBase kieBase = builder.build(resources);
+			kieBases.onEviction(kieBase, builder::release);
+			return kieBase;
+		});
+		assertEquals(1, getPerfStat("droolsassert.parse.org/droolsassert/parse/calls/rules.drl").getLeapsCount());
+		assertEquals(1, getPerfStat("droolsassert.parse.org/droolsassert/parse/trades/rules.drl").getLeapsCount());
+		
+		kieBases.invalidateAll();
+		assertNull(getPerfStat("droolsassert.parse.org/droolsassert/parse/calls/rules.drl"));
+		assertNull(getPerfStat("droolsassert.parse.org/droolsassert/parse/trades/rules.drl"));
+	}
+}
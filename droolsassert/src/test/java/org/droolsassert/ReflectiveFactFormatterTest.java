@@ -0,0 +1,57 @@
+package org.droolsassert;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Field;
+
+import org.junit.Test;
+
+public class ReflectiveFactFormatterTest {
+	
+	@Test
+	public void testFormatFields() {
+		assertEquals("ReflectiveFactFormatterTest.Call[number=11111,tags={a,b},line=<null>,id=1]", new ReflectiveFactFormatter().format(new Call("11111", null)));
+	}
+	
+	@Test
+	public void testFormatNested() {
+		Call call = new Call("11111", new Line("L1"));
+		assertEquals("ReflectiveFactFormatterTest.Call[number=11111,tags={a,b},line=ReflectiveFactFormatterTest.Line[name=L1],id=1]", new ReflectiveFactFormatter(1, 1000).format(call));
+	}
+	
+	@Test
+	public void testFieldFilterAndLength() {
+		FactFormatter formatter = new ReflectiveFactFormatter(0, 50) {
+			@Override
+			protected boolean include(Field field) {
+				return !field.getName().equals("tags");
+			}
+		};
+		assertEquals("ReflectiveFactFormatterTest.Call[number=11111,line...", formatter.format(new Call("11111", null)));
+	}
+	
+	public static class Entity {
+		private long id = 1;
+	}
+	
+	public static class Call extends Entity {
+		private static final String TYPE = "call";
+		private final String number;
+		private final String[] tags = { "a", "b" };
+		private final Line line;
+		private transient int hash;
+		
+		public Call(String number, Line line) {
+			this.number = number;
+			this.line = line;
+		}
+	}
+	
+	public static class Line {
+		private final String name;
+		
+		public Line(String name) {
+			this.name = name;
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package org.droolsassert;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.util.AntPathMatcher;
+
+public class RuleNameMatcherTest {
+	
+	private List<String> patterns = asList("before", "after*", "*timer?", "drop * call", "input {type:\\w+}", "a**b");
+	private RuleNameMatcher matcher = new RuleNameMatcher(patterns);
+	
+	@Test
+	public void testMatches() {
+		assertTrue(matcher.matches("before"));
+		assertTrue(matcher.matches("after all"));
+		assertTrue(matcher.matches("call timer1"));
+		assertTrue(matcher.matches("drop the call"));
+		assertTrue(matcher.matches("input call"));
+		assertTrue(matcher.matches("a-b"));
+		assertFalse(matcher.matches("before call"));
+		assertFalse(matcher.matches("call timer"));
+		assertFalse(matcher.matches("input call dropped"));
+		assertFalse(matcher.matches("drop the call now"));
+	}
+	
+	@Test
+	public void testSameAsAntPathMatcher() {
+		AntPathMatcher antMatcher = new AntPathMatcher("\n");
+		for (String rule : asList("before", "after", "afte", "xtimer1", "timer12", "drop  call", "input ", "input x y", "ab", "a\nb", "a\nx\nb", "")) {
+			boolean expected = patterns.stream().anyMatch(pattern -> antMatcher.match(pattern, rule));
+			assertEquals(rule, expected, matcher.matches(rule));
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package org.droolsassert.listeners;
+
+import static java.nio.charset.Charset.defaultCharset;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Arrays.asList;
+import static org.apache.commons.io.FileUtils.deleteDirectory;
+import static org.apache.commons.io.FileUtils.readLines;
+import static org.apache.commons.io.FileUtils.writeLines;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+
+import org.junit.Test;
+
+public class ActivationReportBuilderTest {
+	
+	@Test
+	public void testShardsAreMergedUnderLock() throws Exception {
+		File directory = createTempDirectory("activationReport").toFile();
+		try {
+			File report = new File(directory, "activationReport.txt");
+			writeLines(report, asList("50.00", "1       \tatomic int rule", "0       \tatomic long rule"));
+			File shard1 = new File(directory, "activationReport.txt.1@host" + ".shard");
+			writeLines(shard1, asList("0       \tatomic int rule", "0       \tatomic long rule", "2       \tatomic int rule"));
+			File shard2 = new File(directory, "activationReport.txt.2@host" + ".shard");
+			writeLines(shard2, asList("3       \tatomic long rule", "1       \tbefore", "2"));
+			File runningShard = new File(directory, "activationReport.txt.3@host" + ".shard");
+			writeLines(runningShard, asList("5       \tafter"));
+			
+			try (FileChannel channel = FileChannel.open(runningShard.toPath(), CREATE, WRITE);
+					FileLock lock = channel.lock()) {
+				ActivationReportBuilder.buildConsolidatedReport(report);
+			}
+			
+			assertEquals(asList("100.00", "3       \tatomic int rule", "3       \tatomic long rule", "1       \tbefore"), readLines(report, defaultCharset()));
+			assertFalse(shard1.exists());
+			assertFalse(shard2.exists());
+			assertTrue("Shard of running JVM is not merged", runningShard.exists());
+		} finally {
+			deleteDirectory(directory);
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package org.droolsassert.listeners;
+
+import static org.droolsassert.listeners.TransitionGraph.NodeType.DeletedFact;
+import static org.droolsassert.listeners.TransitionGraph.NodeType.Rule;
+import static org.droolsassert.listeners.TransitionGraph.NodeType.UpdatedFact;
+import static org.junit.Assert.assertEquals;
+
+import org.droolsassert.listeners.TransitionGraph.Node;
+import org.junit.Test;
+
+public class TransitionGraphTest {
+	
+	@Test
+	public void testToDot() {
+		TransitionGraph graph = new TransitionGraph();
+		Node dialing = graph.addNode(UpdatedFact, "Dialing", "callerNumber=\"11111\"", "00:00:00", "", false);
+		graph.addNode(UpdatedFact, "Unrelated", "", "00:00:00", "", false);
+		Node rule = graph.addNode(Rule, "create call", "org\\droolsassert", "00:00:01", "*", false);
+		Node deleted = graph.addNode(DeletedFact, "Dialing", "callerNumber=\"11111\"", "00:00:01", "", false);
+		graph.addEdge(dialing, rule);
+		graph.addEdge(rule, deleted);
+		
+		assertEquals(""
+				+ "digraph \"test \\\"calls\\\"\" {\n"
+				+ "\tnode [shape=box, style=\"rounded,filled\", fontname=\"tahoma\", fontsize=10];\n"
+				+ "\tn0 [label=\"Dialing\\ncallerNumber=\\\"11111\\\"\\n00:00:00\", fillcolor=\"#c8edc2\", color=\"#42b52f\"];\n"
+				+ "\tn2 [label=\"create call\\norg\\\\droolsassert\\n00:00:01 *\", fillcolor=\"#c7e7ff\", color=\"#4eb3fc\"];\n"
+				+ "\tn3 [label=\"Dialing\\ncallerNumber=\\\"11111\\\"\\n00:00:01\", fillcolor=\"#ebebeb\", color=\"#9e9e9e\"];\n"
+				+ "\tn0 -> n2;\n"
+				+ "\tn2 -> n3;\n"
+				+ "}\n",
+				graph.toDot("test \"calls\""));
+	}
+}